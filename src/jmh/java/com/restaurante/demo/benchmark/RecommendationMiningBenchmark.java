@@ -0,0 +1,100 @@
+package com.restaurante.demo.benchmark;
+
+import com.restaurante.demo.model.ProductComponent;
+import com.restaurante.demo.service.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo de las etapas del recomendador sobre un historial sintetico:
+ * mineria de itemsets frecuentes, generacion de reglas, lookup en el indice y hit del cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class RecommendationMiningBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int orders;
+
+    @Param({"50"})
+    public int catalogSize;
+
+    @Param({"1.1"})
+    public double skew;
+
+    @Param({"3"})
+    public int basketSize;
+
+    @Param({"fpgrowth", "apriori"})
+    public String miner;
+
+    @Param({"1"})
+    public int parallelism;
+
+    @Param({"0.01"})
+    public double minSupport;
+
+    @Param({"0.1"})
+    public double minConfidence;
+
+    private ForkJoinPool pool;
+    private FrequentItemsetMiner itemsetMiner;
+    private Map<Set<Long>, Double> frequentItemsets;
+    private AssociationRuleIndex ruleIndex;
+    private RecommendationCache<RecommendationKey, List<ProductComponent>> cache;
+    private Set<Long> cart;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+        itemsetMiner = "apriori".equals(miner) ? new AprioriMiner(pool) : new FPGrowthMiner(pool);
+        List<Set<Long>> history = SyntheticOrderHistory.generate(orders, catalogSize, skew, basketSize, 42L);
+        itemsetMiner.build(history);
+
+        frequentItemsets = itemsetMiner.findFrequentItemsets(minSupport);
+        List<AssociationRule> rules = AssociationRule.fromFrequentItemsets(frequentItemsets, minConfidence);
+        ruleIndex = new AssociationRuleIndex(rules, itemsetMiner.getTransactionCount(), minSupport, minConfidence);
+
+        // Carrito con los combos mas populares (ids bajos en la distribucion Zipf)
+        cart = new HashSet<>(List.of(1L, 2L, 3L));
+        cache = new RecommendationCache<>(1000, TimeUnit.HOURS.toMillis(1));
+        cache.put(RecommendationKey.of(cart, minSupport, minConfidence, 5), List.of());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    @Benchmark
+    public Map<Set<Long>, Double> frequentItemsetMining() {
+        return itemsetMiner.findFrequentItemsets(minSupport);
+    }
+
+    @Benchmark
+    public List<AssociationRule> ruleGeneration() {
+        return AssociationRule.fromFrequentItemsets(frequentItemsets, minConfidence);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<AssociationRule> ruleIndexLookup() {
+        return ruleIndex.findMatchingRules(cart);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<ProductComponent> cacheHit() {
+        // Solo el lookup en el RecommendationCache real (clave canonica + get), sin el resto de generateRecommendations
+        return cache.get(RecommendationKey.of(cart, minSupport, minConfidence, 5));
+    }
+}
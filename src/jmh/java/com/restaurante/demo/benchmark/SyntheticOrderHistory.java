@@ -0,0 +1,55 @@
+package com.restaurante.demo.benchmark;
+
+import java.util.*;
+
+/**
+ * Generador de historial de ordenes sintetico para los benchmarks.
+ * Cada orden es un conjunto de combos elegidos con una distribucion Zipf: con skew alto
+ * pocos combos concentran la mayoria de las ventas, con skew 0 todos son igual de populares.
+ */
+public final class SyntheticOrderHistory {
+
+    private SyntheticOrderHistory() {
+    }
+
+    /**
+     * @param orders Cantidad de ordenes.
+     * @param catalogSize Cantidad de combos distintos (ids 1..catalogSize).
+     * @param skew Exponente Zipf de la popularidad de los combos.
+     * @param basketSize Cantidad media de combos por orden (minimo 1).
+     * @param seed Semilla para que las corridas sean comparables.
+     * @return Una transaccion (ids de combos) por orden.
+     */
+    public static List<Set<Long>> generate(int orders, int catalogSize, double skew, int basketSize, long seed) {
+        Random random = new Random(seed);
+        double[] cdf = zipfCdf(catalogSize, skew);
+        List<Set<Long>> transactions = new ArrayList<>(orders);
+        for (int i = 0; i < orders; i++) {
+            int size = Math.max(1, Math.min(catalogSize, basketSize - 1 + random.nextInt(3)));
+            Set<Long> basket = new HashSet<>(size * 2);
+            while (basket.size() < size) {
+                basket.add(sample(cdf, random) + 1L);
+            }
+            transactions.add(basket);
+        }
+        return transactions;
+    }
+
+    private static double[] zipfCdf(int n, double skew) {
+        double[] cdf = new double[n];
+        double total = 0;
+        for (int rank = 1; rank <= n; rank++) {
+            total += 1.0 / Math.pow(rank, skew);
+            cdf[rank - 1] = total;
+        }
+        for (int i = 0; i < n; i++) {
+            cdf[i] /= total;
+        }
+        return cdf;
+    }
+
+    private static int sample(double[] cdf, Random random) {
+        int index = Arrays.binarySearch(cdf, random.nextDouble());
+        return Math.min(cdf.length - 1, index >= 0 ? index : -index - 1);
+    }
+}
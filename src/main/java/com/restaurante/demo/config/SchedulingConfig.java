@@ -0,0 +1,11 @@
+package com.restaurante.demo.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+	
+	// Habilita las tareas periodicas (@Scheduled), por ejemplo la reconstruccion del indice de recomendaciones
+}
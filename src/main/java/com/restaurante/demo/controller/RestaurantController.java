@@ -1,5 +1,8 @@
 package com.restaurante.demo.controller;
 
+import com.restaurante.demo.dto.CacheStatsDTO;
+import com.restaurante.demo.dto.ChefQueueItemDTO;
+import com.restaurante.demo.dto.DispatchStatsDTO;
 import com.restaurante.demo.dto.LoginRequestDTO;
 import com.restaurante.demo.dto.LoginResponseDTO;
 import com.restaurante.demo.model.*;
@@ -25,6 +28,7 @@ import org.springframework.web.bind.annotation.*;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api")
@@ -34,6 +38,8 @@ public class RestaurantController {
     private final OrderProcessingFacade orderFacade;
     private final OrderService orderService;
     private final OrderDispatcher orderDispatcher;
+    private final OrderQuoteService orderQuoteService;
+    private final DispatchPipeline dispatchPipeline;
     private final RecommendationService recommendationService;
     private final ProductService productService;
     private final UsuarioService usuarioService;
@@ -45,13 +51,17 @@ public class RestaurantController {
     @Autowired
     public RestaurantController(
             OrderProcessingFacade orderFacade, OrderService orderService,
-            OrderDispatcher orderDispatcher, RecommendationService recommendationService,
+            OrderDispatcher orderDispatcher, OrderQuoteService orderQuoteService,
+            DispatchPipeline dispatchPipeline,
+            RecommendationService recommendationService,
             ProductService productService, UsuarioService usuarioService,
             UsuarioRepository usuarioRepository,
             AuthenticationManager authenticationManager) {
         this.orderFacade = orderFacade;
         this.orderService = orderService;
         this.orderDispatcher = orderDispatcher;
+        this.orderQuoteService = orderQuoteService;
+        this.dispatchPipeline = dispatchPipeline;
         this.recommendationService = recommendationService;
         this.productService = productService;
         this.usuarioService = usuarioService;
@@ -107,12 +117,26 @@ public class RestaurantController {
     public ResponseEntity<?> createOrder(@RequestBody Map<Long, Integer> itemDetails) {
         try {
             return ResponseEntity.ok(orderFacade.createAndPlaceOrder(itemDetails));
+        } catch (RejectedExecutionException e) {
+            // Backpressure: la cocina tiene demasiadas ordenes sin rutear
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "5").body(e.getMessage());
         } catch (Exception e) {
             log.error("Error creating order", e);
             return ResponseEntity.badRequest().body("Error creating order: " + e.getMessage());
         }
     }
     
+    // Cotizacion de ETA sin crear la orden (se puede llamar en cada cambio del carrito)
+    @PostMapping("/client/orders/quote")
+    @PreAuthorize("hasRole('CLIENTE') or hasRole('ADMIN')")
+    public ResponseEntity<?> quoteOrder(@RequestBody Map<Long, Integer> itemDetails) {
+        try {
+            return ResponseEntity.ok(orderQuoteService.quote(itemDetails));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Error quoting order: " + e.getMessage());
+        }
+    }
+    
     @GetMapping("/client/orders/{orderId}/status")
     @PreAuthorize("hasRole('CLIENTE') or hasRole('ADMIN')")
     public ResponseEntity<Order> getOrderStatus(@PathVariable Long orderId) {
@@ -126,19 +150,58 @@ public class RestaurantController {
     
     @GetMapping("/client/recommendations")
     @PreAuthorize("hasRole('CLIENTE') or hasRole('ADMIN')")
-    public ResponseEntity<List<ProductComponent>> getRecommendations(@RequestParam Set<Long> currentItemIds) {
+    public ResponseEntity<List<ProductComponent>> getRecommendations(@RequestParam Set<Long> currentItemIds,
+                                                                     @RequestParam(defaultValue = "5") int limit) {
         double minSupport = 0.01;
         double minConfidence = 0.1;
-        List<ProductComponent> recommendations = recommendationService.generateRecommendations(currentItemIds, minSupport, minConfidence);
+        List<ProductComponent> recommendations = recommendationService.generateRecommendations(currentItemIds, minSupport, minConfidence, limit);
         return ResponseEntity.ok(recommendations);
     }
 
+    @GetMapping("/recommendations/cache-stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CacheStatsDTO> getRecommendationCacheStats() {
+        return ResponseEntity.ok(recommendationService.getCacheStats());
+    }
+
+    @GetMapping("/kitchen/dispatch-stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<DispatchStatsDTO> getDispatchStats() {
+        return ResponseEntity.ok(dispatchPipeline.getStats());
+    }
+
     @GetMapping("/kitchen/orders")
     @PreAuthorize("hasRole('CHEF') or hasRole('ADMIN')")
     public ResponseEntity<List<Order>> getAllActiveOrders() {
         return ResponseEntity.ok(orderService.getActiveOrders());
     }
     
+    @GetMapping("/chef/queue")
+    @PreAuthorize("hasRole('CHEF')")
+    public ResponseEntity<?> getMyQueue() {
+        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+        Usuario user = usuarioRepository.findByUsername(username).orElse(null);
+        if (!(user instanceof Chef)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Only chefs have a work queue.");
+        }
+        List<ChefQueueItemDTO> queue = orderDispatcher.getQueueView(user.getUserId());
+        return ResponseEntity.ok(queue);
+    }
+
+    @PostMapping("/chef/items/{itemId}/start")
+    @PreAuthorize("hasRole('CHEF')")
+    public ResponseEntity<?> startOrderItem(@PathVariable Long itemId) {
+        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+        Usuario user = usuarioRepository.findByUsername(username).orElse(null);
+        if (!(user instanceof Chef)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Only chefs can start items.");
+        }
+        if (!orderDispatcher.markStarted(user.getUserId(), itemId)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Item is not in your queue.");
+        }
+        return ResponseEntity.ok().build();
+    }
+
     @PostMapping("/chef/items/{itemId}/complete")
     @PreAuthorize("hasRole('CHEF')")
     public ResponseEntity<?> completeOrderItem(@PathVariable Long itemId) {
@@ -168,6 +231,22 @@ public class RestaurantController {
         }
     }
 
+    @PostMapping("/kitchen/items/{itemId}/cancel")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> cancelOrderItem(@PathVariable Long itemId) {
+        try {
+            orderService.cancelOrderItem(itemId);
+            return ResponseEntity.ok().build();
+        } catch (ObjectOptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Item was modified by another user. Please refresh.");
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (Exception e) {
+            log.error("Error cancelling item", e);
+            return ResponseEntity.badRequest().body("Error cancelling item: " + e.getMessage());
+        }
+    }
+
     // =================================================================
     // ==                  Endpoints de Login                         ==
     // =================================================================
@@ -0,0 +1,19 @@
+package com.restaurante.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChefQueueItemDTO {
+    private int position; // 0 = el proximo a cocinar
+    private Long itemId;
+    private Long orderId;
+    private String productName;
+    private double estimatedTime;
+    private long latestStartEpochMs; // ultimo inicio que no atrasa la orden
+    private double slackMinutes; // minutos que quedan hasta ese inicio (negativo = ya atrasa la orden)
+    private boolean started; // el chef ya lo tomo
+}
@@ -0,0 +1,22 @@
+package com.restaurante.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DispatchStatsDTO {
+    private boolean async;
+    private int depth; // ordenes confirmadas esperando ruteo
+    private int capacity;
+    private int consumers;
+    private long submitted;
+    private long dispatched;
+    private long rejected; // checkouts rechazados por buffer lleno (503)
+    private long failed;
+    private long oldestWaitMs; // antiguedad de la orden mas vieja del buffer
+    private long lastLagMs; // commit de la orden -> commit de sus asignaciones
+    private long maxLagMs;
+}
@@ -0,0 +1,18 @@
+package com.restaurante.demo.dto;
+
+import com.restaurante.demo.model.ChefStation;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderQuoteDTO {
+    private double estimatedMinutes; // ETA con la carga actual de la cocina
+    private double criticalPathMinutes; // CPM sin restriccion de cocineros
+    private Map<ChefStation, Double> stationWaitMinutes;
+    private int itemCount;
+}
@@ -35,6 +35,12 @@ public class OrderItem {
     // -------------------------------------------------
 
     private int quantity;
+
+    // Linea del carrito de la que salio el item y combo (CompositeProduct) que la origino, si lo hay.
+    // Es el combo de primer nivel que pidio el cliente: un combo anidado dentro de otro no se registra (ni se mina).
+    // Permite agrupar los items de un combo sin tener que inferirlo despues.
+    private Integer lineNumber;
+    private Long sourceCompositeId;
     
     @Column(name = "item_status")
     @Enumerated(EnumType.STRING)
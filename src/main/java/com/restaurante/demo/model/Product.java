@@ -1,13 +1,13 @@
 package com.restaurante.demo.model;
 
-import jakarta.persistence.DiscriminatorValue;
-import jakarta.persistence.Entity;
-import jakarta.persistence.EnumType;
-import jakarta.persistence.Enumerated;
+import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.util.HashSet;
+import java.util.Set;
+
 @Entity
 @DiscriminatorValue("SIMPLE") // Estrategia SingleTable
 @Getter
@@ -19,6 +19,12 @@ public class Product extends ProductComponent {
 
     private Long prerequisiteProductId; 
 
+    // Prerequisitos adicionales (el CPM los une con prerequisiteProductId)
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "product_prerequisites", joinColumns = @JoinColumn(name = "product_id"))
+    @Column(name = "prerequisite_product_id")
+    private Set<Long> prerequisiteProductIds = new HashSet<>();
+
     @Enumerated(EnumType.STRING)
     private ChefStation requiredStation;
 
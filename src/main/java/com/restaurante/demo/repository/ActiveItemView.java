@@ -0,0 +1,13 @@
+package com.restaurante.demo.repository;
+
+/**
+ * Proyeccion liviana de un item en curso: lo justo para reconstruir la cola de su chef al arrancar.
+ */
+public interface ActiveItemView {
+    Long getItemId();
+    Long getOrderId();
+    Long getChefId();
+    String getProductName();
+    double getPreparationTime();
+    int getQuantity();
+}
@@ -3,9 +3,37 @@ package com.restaurante.demo.repository;
 
 //Interfaz que incluye JPA para poder comunicarnos con la base de datos de manera eficiente
 import com.restaurante.demo.model.OrderItem;
+import com.restaurante.demo.model.OrderStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.stream.Stream;
+
 @Repository
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
+
+    /**
+     * Lineas de combo de todas las ordenes, ordenadas por orden, sin cargar entidades.
+     * Incluye tambien los items de ordenes anteriores al registro de lineas (lineNumber null), que no traen el combo
+     * de origen y hay que inferirlo por producto.
+     * Debe consumirse dentro de una transaccion y cerrarse al terminar.
+     */
+    @Query("SELECT DISTINCT i.order.orderId AS orderId, i.lineNumber AS lineNumber, i.sourceCompositeId AS compositeId, " +
+           "p.id AS productId " +
+           "FROM OrderItem i LEFT JOIN i.product p WHERE i.sourceCompositeId IS NOT NULL OR i.lineNumber IS NULL " +
+           "ORDER BY i.order.orderId")
+    Stream<OrderLineView> streamCompositeLines();
+
+    /**
+     * Items asignados a un chef y todavia sin terminar, en orden de llegada, sin cargar entidades.
+     * Debe consumirse dentro de una transaccion y cerrarse al terminar.
+     */
+    @Query("SELECT i.id AS itemId, i.order.orderId AS orderId, c.userId AS chefId, p.name AS productName, " +
+           "i.preparationTime AS preparationTime, i.quantity AS quantity " +
+           "FROM OrderItem i JOIN i.assignedChef c LEFT JOIN i.product p " +
+           "WHERE i.status IN :statuses ORDER BY i.id")
+    Stream<ActiveItemView> streamAssignedItems(@Param("statuses") Collection<OrderStatus> statuses);
 }
@@ -0,0 +1,11 @@
+package com.restaurante.demo.repository;
+
+/**
+ * Proyeccion liviana de una linea de orden: solo los ids necesarios para armar transacciones de recomendacion.
+ */
+public interface OrderLineView {
+    Long getOrderId();
+    Integer getLineNumber();
+    Long getCompositeId();
+    Long getProductId();
+}
@@ -1,8 +1,10 @@
 package com.restaurante.demo.repository;
 
 import com.restaurante.demo.model.Order;
+import com.restaurante.demo.model.OrderStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -20,4 +22,7 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
            "LEFT JOIN FETCH i.assignedChef " +
            "WHERE o.status <> 'COMPLETED' AND o.status <> 'REVOKED'")
     List<Order> findAllActiveOrdersForKitchen();
-}
\ No newline at end of file
+
+    @Query("SELECT o.orderId FROM Order o WHERE o.status = :status ORDER BY o.orderId")
+    List<Long> findIdsByStatus(@Param("status") OrderStatus status);
+}
@@ -5,6 +5,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
+import java.util.Set;
 
 public interface ProductRepository extends JpaRepository<ProductComponent, Long> {
     
@@ -15,4 +16,8 @@ public interface ProductRepository extends JpaRepository<ProductComponent, Long>
     // Query to get only simple products (leaves) for the composite builder
     @Query("SELECT p FROM Product p")
     List<ProductComponent> findAllSimpleProducts();
+
+    // Ids de combos visibles: son los unicos que participan en las recomendaciones
+    @Query("SELECT p.id FROM CompositeProduct p WHERE p.isVisibleToClient = true")
+    Set<Long> findVisibleCompositeIds();
 }
\ No newline at end of file
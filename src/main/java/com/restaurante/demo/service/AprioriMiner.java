@@ -0,0 +1,177 @@
+package com.restaurante.demo.service;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Apriori clasico por niveles. Se mantiene como alternativa a FP-Growth (recommendation.miner=apriori).
+ * Trabaja sobre una {@link TransactionDatabase}: los itemsets son int[] ordenados de items densos
+ * y el soporte se cuenta con AND + popcount sobre los bitsets de cada item.
+ * Con un ForkJoinPool el conteo de cada nivel se reparte en shards de transacciones y se suman los conteos parciales.
+ */
+public class AprioriMiner implements FrequentItemsetMiner {
+
+    // 256 palabras = 16384 transacciones por shard
+    private static final int SHARD_WORDS = 256;
+
+    private final TransactionDatabase database = new TransactionDatabase();
+    private final ForkJoinPool pool;
+
+    public AprioriMiner() {
+        this(null);
+    }
+
+    /**
+     * @param pool Pool para el conteo en paralelo, o null para contar en el thread que llama.
+     */
+    public AprioriMiner(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public synchronized void build(Collection<Set<Long>> transactions) {
+        database.clear();
+        transactions.forEach(database::add);
+    }
+
+    @Override
+    public synchronized void addTransaction(Set<Long> transaction) {
+        database.add(transaction);
+    }
+
+    @Override
+    public synchronized int getTransactionCount() {
+        return database.getTransactionCount();
+    }
+
+    @Override
+    public synchronized Map<Set<Long>, Double> findFrequentItemsets(double minSupport) {
+        int numTransactions = database.getTransactionCount();
+        Map<Set<Long>, Double> allFrequentItemsets = new HashMap<>();
+        if (numTransactions == 0) {
+            return allFrequentItemsets;
+        }
+        int minCount = FrequentItemsetMiner.minimumSupportCount(minSupport, numTransactions);
+
+        // L1: el soporte de cada item ya esta contado en la base
+        List<int[]> Lk_1 = new ArrayList<>();
+        for (int item = 0; item < database.getItemCount(); item++) {
+            int count = database.getItemSupport(item);
+            if (count >= minCount) {
+                int[] itemset = {item};
+                Lk_1.add(itemset);
+                allFrequentItemsets.put(decode(itemset), (double) count / numTransactions);
+            }
+        }
+
+        while (!Lk_1.isEmpty()) {
+            List<int[]> Lk = new ArrayList<>();
+            List<int[]> Ck = generateCandidates(Lk_1);
+            int[] counts = countSupports(Ck);
+            for (int i = 0; i < Ck.size(); i++) {
+                if (counts[i] >= minCount) {
+                    int[] candidate = Ck.get(i);
+                    Lk.add(candidate);
+                    allFrequentItemsets.put(decode(candidate), (double) counts[i] / numTransactions);
+                }
+            }
+            Lk_1 = Lk;
+        }
+
+        return allFrequentItemsets;
+    }
+
+    private int[] countSupports(List<int[]> candidates) {
+        int words = database.getWordCount();
+        if (pool == null || words <= SHARD_WORDS || candidates.isEmpty()) {
+            return new SupportCountTask(candidates, 0, words).countShard();
+        }
+        return pool.invoke(new SupportCountTask(candidates, 0, words));
+    }
+
+    /**
+     * Cuenta el soporte de todos los candidatos sobre las palabras [from, to) de la base.
+     * Divide el rango hasta llegar a SHARD_WORDS y suma los conteos de cada mitad.
+     */
+    private final class SupportCountTask extends RecursiveTask<int[]> {
+        private final List<int[]> candidates;
+        private final int from;
+        private final int to;
+
+        SupportCountTask(List<int[]> candidates, int from, int to) {
+            this.candidates = candidates;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (to - from <= SHARD_WORDS) {
+                return countShard();
+            }
+            int mid = (from + to) >>> 1;
+            SupportCountTask left = new SupportCountTask(candidates, from, mid);
+            left.fork();
+            int[] counts = new SupportCountTask(candidates, mid, to).compute();
+            int[] leftCounts = left.join();
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += leftCounts[i];
+            }
+            return counts;
+        }
+
+        int[] countShard() {
+            int[] counts = new int[candidates.size()];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = database.support(candidates.get(i), from, to);
+            }
+            return counts;
+        }
+    }
+
+    /**
+     * Join de itemsets que comparten los primeros k-2 items + poda de candidatos con algun subconjunto no frecuente.
+     * Lk_1 esta en orden lexicografico, asi que los que comparten prefijo son contiguos y los candidatos salen ordenados.
+     */
+    private List<int[]> generateCandidates(List<int[]> Lk_1) {
+        List<int[]> candidates = new ArrayList<>();
+        int size = Lk_1.isEmpty() ? 0 : Lk_1.get(0).length;
+        int[] subset = new int[size];
+        for (int i = 0; i < Lk_1.size(); i++) {
+            int[] a = Lk_1.get(i);
+            for (int j = i + 1; j < Lk_1.size(); j++) {
+                int[] b = Lk_1.get(j);
+                if (!Arrays.equals(a, 0, size - 1, b, 0, size - 1)) break;
+
+                int[] candidate = Arrays.copyOf(a, size + 1);
+                candidate[size] = b[size - 1];
+                if (allSubsetsFrequent(candidate, Lk_1, subset)) {
+                    candidates.add(candidate);
+                }
+            }
+        }
+        return candidates;
+    }
+
+    private boolean allSubsetsFrequent(int[] candidate, List<int[]> Lk_1, int[] subset) {
+        // Los subconjuntos sin alguno de los dos ultimos items son los padres del join
+        for (int skip = 0; skip < candidate.length - 2; skip++) {
+            for (int i = 0, j = 0; i < candidate.length; i++) {
+                if (i != skip) subset[j++] = candidate[i];
+            }
+            if (Collections.binarySearch(Lk_1, subset, Arrays::compare) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Set<Long> decode(int[] itemset) {
+        Set<Long> productIds = new HashSet<>(itemset.length * 2);
+        for (int item : itemset) {
+            productIds.add(database.decode(item));
+        }
+        return productIds;
+    }
+}
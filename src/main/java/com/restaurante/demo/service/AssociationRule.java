@@ -0,0 +1,84 @@
+package com.restaurante.demo.service;
+
+import lombok.Getter;
+
+import java.util.*;
+
+/**
+ * Regla de asociacion {antecedent} -> {consequent} generada a partir de los itemsets frecuentes.
+ */
+@Getter
+public class AssociationRule {
+
+    // Orden de ranking: mayor confianza primero y, a igual confianza, mayor lift
+    public static final Comparator<AssociationRule> BY_CONFIDENCE_THEN_LIFT =
+            Comparator.comparingDouble(AssociationRule::getConfidence).thenComparingDouble(AssociationRule::getLift);
+
+    private final Set<Long> antecedent;
+    private final Set<Long> consequent;
+    private final double support;
+    private final double confidence;
+    // lift = confidence / soporte(consequent); > 1 indica que el antecedente realmente aumenta la probabilidad
+    private final double lift;
+
+    public AssociationRule(Set<Long> antecedent, Set<Long> consequent, double support, double confidence, double lift) {
+        this.antecedent = antecedent;
+        this.consequent = consequent;
+        this.support = support;
+        this.confidence = confidence;
+        this.lift = lift;
+    }
+
+    /**
+     * Genera todas las reglas con confianza >= minConfidence. Es independiente del algoritmo
+     * que encontro los itemsets, por eso lo comparten Apriori y FP-Growth.
+     * @param frequentItemsets Itemsets frecuentes con su soporte.
+     * @param minConfidence Confianza minima.
+     * @return The association rules.
+     */
+    public static List<AssociationRule> fromFrequentItemsets(Map<Set<Long>, Double> frequentItemsets, double minConfidence) {
+        List<AssociationRule> rules = new ArrayList<>();
+        for (Map.Entry<Set<Long>, Double> entry : frequentItemsets.entrySet()) {
+            Set<Long> itemset = entry.getKey();
+            if (itemset.size() > 1) {
+                for (Set<Long> subset : getSubsets(itemset)) {
+                    if (subset.isEmpty() || subset.equals(itemset)) continue;
+
+                    Set<Long> antecedent = subset;
+                    Set<Long> consequent = new HashSet<>(itemset);
+                    consequent.removeAll(antecedent);
+
+                    Double itemsetSupportValue = entry.getValue();
+                    Double antecedentSupportValue = frequentItemsets.get(antecedent);
+                    if (itemsetSupportValue != null && antecedentSupportValue != null && antecedentSupportValue > 0) {
+                        double confidence = itemsetSupportValue / antecedentSupportValue;
+                        if (confidence >= minConfidence) {
+                            // Todo subconjunto de un itemset frecuente tambien es frecuente
+                            Double consequentSupportValue = frequentItemsets.get(consequent);
+                            double lift = (consequentSupportValue != null && consequentSupportValue > 0)
+                                    ? confidence / consequentSupportValue : 1.0;
+                            rules.add(new AssociationRule(Set.copyOf(antecedent), Set.copyOf(consequent), itemsetSupportValue, confidence, lift));
+                        }
+                    }
+                }
+            }
+        }
+        return rules;
+    }
+
+    private static Set<Set<Long>> getSubsets(Set<Long> set) {
+        Set<Set<Long>> subsets = new HashSet<>();
+        List<Long> elements = new ArrayList<>(set);
+        int n = elements.size();
+        for (int i = 0; i < (1 << n); i++) {
+            Set<Long> subset = new HashSet<>();
+            for (int j = 0; j < n; j++) {
+                if ((i & (1 << j)) > 0) {
+                    subset.add(elements.get(j));
+                }
+            }
+            subsets.add(subset);
+        }
+        return subsets;
+    }
+}
@@ -0,0 +1,90 @@
+package com.restaurante.demo.service;
+
+import lombok.Getter;
+
+import java.util.*;
+
+/**
+ * Indice inmutable de reglas de asociacion agrupadas por antecedente.
+ * Se construye en background y se reemplaza atomicamente; los requests solo hacen lookups.
+ */
+public final class AssociationRuleIndex {
+
+    public static final AssociationRuleIndex EMPTY = new AssociationRuleIndex(Collections.emptyList(), 0, 0, 0);
+
+    private final Map<Set<Long>, List<AssociationRule>> rulesByAntecedent;
+    // Items que aparecen en algun antecedente: el resto del carrito no puede disparar reglas
+    private final Set<Long> antecedentItems;
+    private final int maxAntecedentSize;
+    @Getter
+    private final int ruleCount;
+    @Getter
+    private final int transactionCount;
+    @Getter
+    private final double minSupport;
+    @Getter
+    private final double minConfidence;
+    @Getter
+    private final long builtAt;
+
+    public AssociationRuleIndex(List<AssociationRule> rules, int transactionCount, double minSupport, double minConfidence) {
+        Map<Set<Long>, List<AssociationRule>> grouped = new HashMap<>();
+        Set<Long> items = new HashSet<>();
+        int maxSize = 0;
+        for (AssociationRule rule : rules) {
+            grouped.computeIfAbsent(rule.getAntecedent(), k -> new ArrayList<>()).add(rule);
+            items.addAll(rule.getAntecedent());
+            maxSize = Math.max(maxSize, rule.getAntecedent().size());
+        }
+        Map<Set<Long>, List<AssociationRule>> frozen = new HashMap<>();
+        grouped.forEach((antecedent, group) -> frozen.put(antecedent, List.copyOf(group)));
+
+        this.rulesByAntecedent = Collections.unmodifiableMap(frozen);
+        this.antecedentItems = Set.copyOf(items);
+        this.maxAntecedentSize = maxSize;
+        this.ruleCount = rules.size();
+        this.transactionCount = transactionCount;
+        this.minSupport = minSupport;
+        this.minConfidence = minConfidence;
+        this.builtAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Devuelve las reglas cuyo antecedente esta contenido en el carrito.
+     * Solo se enumeran los subconjuntos del carrito de tamanio <= al antecedente mas largo del indice.
+     * @param currentItemIds Los productos del carrito.
+     * @return Matching rules.
+     */
+    public List<AssociationRule> findMatchingRules(Set<Long> currentItemIds) {
+        if (rulesByAntecedent.isEmpty()) {
+            return Collections.emptyList();
+        }
+        long[] relevant = currentItemIds.stream()
+                .filter(antecedentItems::contains)
+                .mapToLong(Long::longValue)
+                .sorted()
+                .toArray();
+
+        List<AssociationRule> matches = new ArrayList<>();
+        collectSubsets(relevant, 0, new ArrayDeque<>(), matches);
+        return matches;
+    }
+
+    private void collectSubsets(long[] items, int from, Deque<Long> subset, List<AssociationRule> matches) {
+        for (int i = from; i < items.length; i++) {
+            subset.addLast(items[i]);
+            List<AssociationRule> rules = rulesByAntecedent.get(Set.copyOf(subset));
+            if (rules != null) {
+                matches.addAll(rules);
+            }
+            if (subset.size() < maxAntecedentSize) {
+                collectSubsets(items, i + 1, subset, matches);
+            }
+            subset.removeLast();
+        }
+    }
+
+    public boolean isEmpty() {
+        return ruleCount == 0;
+    }
+}
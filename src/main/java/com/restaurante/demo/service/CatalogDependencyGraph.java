@@ -0,0 +1,224 @@
+package com.restaurante.demo.service;
+
+import com.restaurante.demo.model.Product;
+import com.restaurante.demo.model.ProductComponent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Grafo de prerequisitos del catalogo compilado una sola vez (los prerequisitos son propiedad del producto, no de la orden).
+ * Guarda por producto: rank topologico, prerequisitos en formato CSR y el largo del camino critico de su subgrafo
+ * de prerequisitos (cantidades unitarias). El CPM de cada orden solo ordena sus items por rank y escala por cantidad.
+ * Se recompila en el siguiente acceso despues de un cambio de catalogo.
+ */
+@Component
+@Slf4j
+public class CatalogDependencyGraph implements CatalogListener {
+
+    public static final int NOT_RANKED = -1;
+
+    private final CatalogSnapshot catalogSnapshot;
+    private volatile Compiled compiled;
+
+    @Autowired
+    public CatalogDependencyGraph(CatalogSnapshot catalogSnapshot) {
+        this.catalogSnapshot = catalogSnapshot;
+    }
+
+    /**
+     * @return El grafo compilado vigente (inmutable, se puede seguir usando aunque el catalogo cambie).
+     */
+    public Compiled current() {
+        Compiled current = compiled;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (compiled == null) {
+                compiled = compile(catalogSnapshot.getAll());
+            }
+            return compiled;
+        }
+    }
+
+    /**
+     * @return Camino critico del producto con todos sus prerequisitos (minutos, cantidad 1), o 0 si no es un producto simple.
+     */
+    public double getCriticalPathLength(Long productId) {
+        Compiled graph = current();
+        int node = graph.indexOf(productId);
+        return node < 0 ? 0.0 : graph.getCriticalPathLength(node);
+    }
+
+    @Override
+    public synchronized void onCatalogChanged() {
+        // El snapshot tiene que estar invalidado antes de recompilar, sin depender del orden de los listeners
+        catalogSnapshot.onCatalogChanged();
+        compiled = null;
+    }
+
+    static Compiled compile(Collection<ProductComponent> catalog) {
+        long start = System.nanoTime();
+        List<Product> products = new ArrayList<>();
+        for (ProductComponent component : catalog) {
+            if (component instanceof Product) {
+                products.add((Product) component);
+            }
+        }
+        int n = products.size();
+        Map<Long, Integer> index = new HashMap<>(n * 2);
+        long[] productIds = new long[n];
+        double[] preparationTimes = new double[n];
+        for (int i = 0; i < n; i++) {
+            Product product = products.get(i);
+            productIds[i] = product.getId();
+            preparationTimes[i] = product.getPreparationTime();
+            index.put(product.getId(), i);
+        }
+
+        // 1. Prerequisitos en CSR (prerequisiteProductId + prerequisiteProductIds, sin repetidos)
+        int[] prerequisiteStart = new int[n + 1];
+        List<Long> prerequisiteList = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            Product product = products.get(i);
+            Set<Long> prerequisites = new LinkedHashSet<>();
+            if (product.getPrerequisiteProductId() != null) {
+                prerequisites.add(product.getPrerequisiteProductId());
+            }
+            if (product.getPrerequisiteProductIds() != null) {
+                prerequisites.addAll(product.getPrerequisiteProductIds());
+            }
+            prerequisites.remove(product.getId());
+            prerequisiteList.addAll(prerequisites);
+            prerequisiteStart[i + 1] = prerequisiteList.size();
+        }
+        long[] prerequisiteIds = prerequisiteList.stream().mapToLong(Long::longValue).toArray();
+
+        // 2. Sorting topologico del catalogo (solo cuentan los prerequisitos que existen)
+        int[] inDegree = new int[n];
+        int[] successorStart = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            for (int p = prerequisiteStart[i]; p < prerequisiteStart[i + 1]; p++) {
+                Integer pred = index.get(prerequisiteIds[p]);
+                if (pred != null) {
+                    successorStart[pred + 1]++;
+                    inDegree[i]++;
+                }
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            successorStart[i + 1] += successorStart[i];
+        }
+        int[] successors = new int[successorStart[n]];
+        int[] cursor = Arrays.copyOf(successorStart, n);
+        for (int i = 0; i < n; i++) {
+            for (int p = prerequisiteStart[i]; p < prerequisiteStart[i + 1]; p++) {
+                Integer pred = index.get(prerequisiteIds[p]);
+                if (pred != null) {
+                    successors[cursor[pred]++] = i;
+                }
+            }
+        }
+
+        int[] order = new int[n];
+        int head = 0, tail = 0;
+        for (int i = 0; i < n; i++) {
+            if (inDegree[i] == 0) order[tail++] = i;
+        }
+        while (head < tail) {
+            int current = order[head++];
+            for (int e = successorStart[current]; e < successorStart[current + 1]; e++) {
+                if (--inDegree[successors[e]] == 0) {
+                    order[tail++] = successors[e];
+                }
+            }
+        }
+
+        // 3. Rank = posicion topologica; camino critico = propio tiempo + el prerequisito mas largo
+        int[] rank = new int[n];
+        Arrays.fill(rank, NOT_RANKED);
+        double[] criticalPath = new double[n];
+        for (int k = 0; k < tail; k++) {
+            int u = order[k];
+            rank[u] = k;
+            criticalPath[u] += preparationTimes[u];
+            for (int e = successorStart[u]; e < successorStart[u + 1]; e++) {
+                int v = successors[e];
+                criticalPath[v] = Math.max(criticalPath[v], criticalPath[u]);
+            }
+        }
+        if (tail != n) {
+            log.error("Ciclo de prerequisitos en el catalogo: {} productos quedan sin rank (sus ordenes usan el CPM completo).", n - tail);
+        }
+        log.info("Catalog dependency graph compiled: {} products, {} prerequisite edges in {} ms.",
+                n, successors.length, (System.nanoTime() - start) / 1_000_000);
+        return new Compiled(index, productIds, rank, prerequisiteStart, prerequisiteIds, criticalPath);
+    }
+
+    /**
+     * Grafo compilado e inmutable. Los nodos son indices densos de productos simples.
+     */
+    public static final class Compiled {
+        private final Map<Long, Integer> index;
+        private final long[] productIds;
+        private final int[] rank;
+        private final int[] prerequisiteStart;
+        private final long[] prerequisiteIds;
+        private final double[] criticalPath;
+
+        Compiled(Map<Long, Integer> index, long[] productIds, int[] rank,
+                 int[] prerequisiteStart, long[] prerequisiteIds, double[] criticalPath) {
+            this.index = Map.copyOf(index);
+            this.productIds = productIds;
+            this.rank = rank;
+            this.prerequisiteStart = prerequisiteStart;
+            this.prerequisiteIds = prerequisiteIds;
+            this.criticalPath = criticalPath;
+        }
+
+        /**
+         * @return El nodo del producto, o -1 si no es un producto simple del grafo.
+         */
+        public int indexOf(Long productId) {
+            if (productId == null) {
+                return -1;
+            }
+            Integer node = index.get(productId);
+            return node == null ? -1 : node;
+        }
+
+        public int size() {
+            return productIds.length;
+        }
+
+        public long getProductId(int node) {
+            return productIds[node];
+        }
+
+        /**
+         * @return Posicion topologica del producto, o {@link #NOT_RANKED} si esta en un ciclo.
+         */
+        public int getRank(int node) {
+            return rank[node];
+        }
+
+        public int getPrerequisiteStart(int node) {
+            return prerequisiteStart[node];
+        }
+
+        public int getPrerequisiteEnd(int node) {
+            return prerequisiteStart[node + 1];
+        }
+
+        public long getPrerequisiteId(int position) {
+            return prerequisiteIds[position];
+        }
+
+        public double getCriticalPathLength(int node) {
+            return criticalPath[node];
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.restaurante.demo.service;
+
+/**
+ * Observer de cambios en el catalogo de productos.
+ * ProductService avisa a todos los listeners despues de que se confirma un create/update/delete.
+ */
+public interface CatalogListener {
+    void onCatalogChanged();
+}
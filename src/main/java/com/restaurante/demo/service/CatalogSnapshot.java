@@ -0,0 +1,63 @@
+package com.restaurante.demo.service;
+
+import com.restaurante.demo.model.ProductComponent;
+import com.restaurante.demo.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Copia en memoria del catalogo de productos por id, para resolver recomendaciones sin ir a la base.
+ * Se recarga (una sola vez, en el siguiente acceso) cuando ProductService avisa un cambio.
+ */
+@Component
+@Slf4j
+public class CatalogSnapshot implements CatalogListener {
+
+    private final ProductRepository productRepository;
+    private volatile Map<Long, ProductComponent> productsById;
+
+    @Autowired
+    public CatalogSnapshot(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    /**
+     * @return The product, or null if it no longer exists.
+     */
+    public ProductComponent get(Long productId) {
+        return snapshot().get(productId);
+    }
+
+    /**
+     * @return Todos los productos del snapshot vigente (inmutable).
+     */
+    public Collection<ProductComponent> getAll() {
+        return snapshot().values();
+    }
+
+    @Override
+    public synchronized void onCatalogChanged() {
+        productsById = null;
+    }
+
+    private Map<Long, ProductComponent> snapshot() {
+        Map<Long, ProductComponent> current = productsById;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (productsById == null) {
+                Map<Long, ProductComponent> loaded = new HashMap<>();
+                productRepository.findAll().forEach(product -> loaded.put(product.getId(), product));
+                productsById = Map.copyOf(loaded);
+                log.debug("Catalog snapshot loaded with {} products", loaded.size());
+            }
+            return productsById;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.restaurante.demo.service;
+
+import com.restaurante.demo.model.Chef;
+import com.restaurante.demo.model.ChefStation;
+import com.restaurante.demo.repository.ChefRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Indice en memoria de chefs por estacion para el ruteo: se carga al arrancar y UsuarioService lo actualiza
+ * despues de cada alta/modificacion de chef, asi que rutear un item nunca consulta la base.
+ * Las lecturas ven una copia inmutable; las escrituras (poco frecuentes) arman una nueva y la publican.
+ */
+@Component
+@Slf4j
+public class ChefRoster {
+
+    private final ChefRepository chefRepository;
+    private volatile Snapshot snapshot = new Snapshot(Collections.emptyMap());
+    private final List<Consumer<Chef>> listeners = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    public ChefRoster(ChefRepository chefRepository) {
+        this.chefRepository = chefRepository;
+    }
+
+    /**
+     * Roster sin base de datos (simulaciones, tests): queda cargado con los chefs dados.
+     */
+    public ChefRoster(Collection<Chef> chefs) {
+        this.chefRepository = null;
+        replaceAll(chefs);
+    }
+
+    @PostConstruct
+    public void reload() {
+        if (chefRepository == null) {
+            return;
+        }
+        List<Chef> chefs = chefRepository.findAll();
+        replaceAll(chefs);
+        log.info("Chef roster loaded with {} chefs.", chefs.size());
+    }
+
+    /**
+     * @return Chefs de la estacion (lista inmutable, vacia si no hay).
+     */
+    public List<Chef> getChefs(ChefStation station) {
+        return snapshot.byStation.getOrDefault(station, List.of());
+    }
+
+    /**
+     * @return The chef, or null if it is not in the roster.
+     */
+    public Chef getChef(Long chefId) {
+        return snapshot.byId.get(chefId);
+    }
+
+    public Collection<Chef> getAll() {
+        return snapshot.byId.values();
+    }
+
+    /**
+     * @return Foto inmutable chefId -> chef (no cambia aunque despues se actualice el roster).
+     */
+    public Map<Long, Chef> getChefsById() {
+        return snapshot.byId;
+    }
+
+    /**
+     * Registra un listener que se llama despues de cada alta o modificacion de un chef.
+     */
+    public void addListener(Consumer<Chef> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Agrega o reemplaza un chef (incluye cambios de estacion y eficiencia).
+     */
+    public void upsert(Chef chef) {
+        synchronized (this) {
+            Map<Long, Chef> chefs = new LinkedHashMap<>(snapshot.byId);
+            chefs.put(chef.getUserId(), chef);
+            snapshot = new Snapshot(chefs);
+        }
+        log.debug("Chef roster updated: Chef {} at {} (efficiency {}).", chef.getUserId(), chef.getStation(), chef.getEfficiency());
+        listeners.forEach(listener -> listener.accept(chef));
+    }
+
+    private synchronized void replaceAll(Collection<Chef> chefs) {
+        Map<Long, Chef> byId = new LinkedHashMap<>();
+        chefs.forEach(chef -> byId.put(chef.getUserId(), chef));
+        snapshot = new Snapshot(byId);
+    }
+
+    private static final class Snapshot {
+        final Map<Long, Chef> byId;
+        final Map<ChefStation, List<Chef>> byStation;
+
+        Snapshot(Map<Long, Chef> chefs) {
+            Map<ChefStation, List<Chef>> grouped = new EnumMap<>(ChefStation.class);
+            chefs.values().forEach(chef -> {
+                if (chef.getStation() != null) {
+                    grouped.computeIfAbsent(chef.getStation(), k -> new ArrayList<>()).add(chef);
+                }
+            });
+            grouped.replaceAll((station, list) -> List.copyOf(list));
+            this.byId = Collections.unmodifiableMap(chefs);
+            this.byStation = grouped;
+        }
+    }
+}
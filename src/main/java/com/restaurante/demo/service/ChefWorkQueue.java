@@ -1,41 +1,323 @@
 package com.restaurante.demo.service;
 
 import com.restaurante.demo.model.OrderItem;
-import lombok.Getter;
 
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.*;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
-@Getter
+/**
+ * Cola de trabajo de un chef: heap indexado por ultimo inicio admisible (EDF) mas un mapa itemId -> entrada.
+ * Los items del camino critico (holgura 0) salen antes que los que pueden esperar sin atrasar su orden.
+ * Como los plazos son absolutos, un item que espera no se posterga para siempre: los que llegan despues traen plazos
+ * mas tardios y, con el tiempo, el suyo pasa a ser el mas urgente (envejecimiento natural, sin starvation).
+ * Buscar un item por id es O(1) y sacarlo o cambiarle la prioridad es O(log n), sin recorrer la cola.
+ * Los items que el chef ya tomo ({@link #start}) quedan al frente, no cambian de prioridad y no se ceden.
+ * La carga (preparationTime * quantity) se suma al encolar y se resta al sacar un item (completado, cancelado o movido),
+ * asi refleja el backlog real.
+ * En cada cambio se publica una {@link Timeline} inmutable de la cola, para planificar y cotizar sin tomar su lock.
+ */
 public class ChefWorkQueue {
-    private final BlockingQueue<OrderItem> itemQueue = new LinkedBlockingQueue<>();
-    // Cada Cola de Chef va a ser un Queue thread
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private QueuedItem[] heap = new QueuedItem[INITIAL_CAPACITY];
+    private int size = 0;
+    private long nextSequence = 0;
+    private final Map<Long, QueuedItem> byItemId = new HashMap<>();
+    // Cada Cola de Chef va a ser un Queue thread; la carga se lee sin lock (minutos * 100)
     private final AtomicLong totalEstimatedTime = new AtomicLong(0);
+    // Foto EDF de la cola, reemplazada (con el lock) en cada cambio y leida sin lock
+    private volatile Timeline timeline = Timeline.EMPTY;
+    // Aviso de cambio de carga (p.ej. para el StationLoadIndex del dispatcher). Se llama fuera del lock de la cola.
+    private final Consumer<ChefWorkQueue> loadListener;
+
+    public ChefWorkQueue() {
+        this(queue -> { });
+    }
+
+    public ChefWorkQueue(Consumer<ChefWorkQueue> loadListener) {
+        this.loadListener = loadListener;
+    }
 
     /**
      * Anade un item e incrementa el tiempo total estimado
      * @param item The order item to add.
      */
     public void addItem(OrderItem item) {
-        long itemPrepTime = (long) (item.getPreparationTime() * 100);
-        if (this.itemQueue.add(item)) {
-            totalEstimatedTime.addAndGet(itemPrepTime);
+        add(QueuedItem.of(item));
+    }
+
+    /**
+     * @param latestStart Ultimo inicio admisible del item, en minutos epoch (ver {@link DispatchContext#getLatestStart}).
+     */
+    public void addItem(OrderItem item, double latestStart) {
+        add(QueuedItem.of(item, latestStart));
+    }
+
+    /**
+     * Encola una entrada. Un item que ya esta en la cola no se vuelve a agregar.
+     * @return false si el item ya estaba encolado.
+     */
+    public boolean add(QueuedItem entry) {
+        synchronized (this) {
+            if (entry.getItemId() != null && byItemId.containsKey(entry.getItemId())) {
+                return false;
+            }
+            entry.sequence = nextSequence++;
+            if (Double.isNaN(entry.getPriority())) {
+                entry.setPriority(QueuedItem.nowMinutes());
+            }
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, size * 2);
+            }
+            heap[size] = entry;
+            entry.heapIndex = size++;
+            siftUp(entry.heapIndex);
+            if (entry.getItemId() != null) {
+                byItemId.put(entry.getItemId(), entry);
+            }
+            totalEstimatedTime.addAndGet(entry.loadHundredths());
+            publishTimeline();
+        }
+        loadListener.accept(this);
+        return true;
+    }
+
+    /**
+     * Elimina un item por id y decrementa el tiempo total estimado
+     * @return La entrada eliminada, o null si el item no estaba en la cola.
+     */
+    public QueuedItem remove(Long itemId) {
+        QueuedItem removed;
+        synchronized (this) {
+            removed = itemId == null ? null : byItemId.get(itemId);
+            if (removed == null) {
+                return null;
+            }
+            removeAt(removed.heapIndex);
+        }
+        loadListener.accept(this);
+        return removed;
+    }
+
+    /**
+     * Saca el item de mayor prioridad.
+     * @return The removed entry, or null if the queue is empty.
+     */
+    public QueuedItem poll() {
+        QueuedItem head;
+        synchronized (this) {
+            if (size == 0) {
+                return null;
+            }
+            head = heap[0];
+            removeAt(0);
+        }
+        loadListener.accept(this);
+        return head;
+    }
+
+    /**
+     * Saca el ultimo item de la cola (el que el chef cocinaria ultimo), para cederlo a otro chef.
+     * Los items que el chef ya empezo nunca se ceden.
+     * @return The removed entry, or null if the queue has no item that has not been started.
+     */
+    public QueuedItem pollLast() {
+        QueuedItem tail;
+        synchronized (this) {
+            if (size == 0) {
+                return null;
+            }
+            // El maximo de un heap esta en alguna hoja
+            int last = size >>> 1;
+            for (int i = last + 1; i < size; i++) {
+                if (ORDER.compare(heap[i], heap[last]) > 0) {
+                    last = i;
+                }
+            }
+            // Los empezados ordenan primero: si el maximo esta empezado, lo estan todos
+            if (heap[last].isStarted()) {
+                return null;
+            }
+            tail = heap[last];
+            removeAt(last);
+        }
+        loadListener.accept(this);
+        return tail;
+    }
+
+    /**
+     * Marca un item como tomado por el chef: pasa al frente de la cola y queda fijo ahi hasta que se saca.
+     * @return false si el item no esta en la cola.
+     */
+    public synchronized boolean start(Long itemId) {
+        QueuedItem entry = itemId == null ? null : byItemId.get(itemId);
+        if (entry == null) {
+            return false;
+        }
+        if (!entry.isStarted()) {
+            entry.markStarted();
+            siftUp(entry.heapIndex);
+            publishTimeline();
+        }
+        return true;
+    }
+
+    /**
+     * @return El proximo item a cocinar (sin sacarlo), o null si la cola esta vacia.
+     */
+    public synchronized QueuedItem peek() {
+        return size == 0 ? null : heap[0];
+    }
+
+    /**
+     * Cambia el ultimo inicio admisible de un item encolado (menor = antes).
+     * @return false si el item no esta en la cola o el chef ya lo empezo.
+     */
+    public synchronized boolean reprioritize(Long itemId, double priority) {
+        QueuedItem entry = itemId == null ? null : byItemId.get(itemId);
+        if (entry == null || entry.isStarted()) {
+            return false;
         }
+        double previous = entry.getPriority();
+        entry.setPriority(priority);
+        if (priority < previous) {
+            siftUp(entry.heapIndex);
+        } else {
+            siftDown(entry.heapIndex);
+        }
+        publishTimeline();
+        return true;
+    }
+
+    public synchronized boolean contains(Long itemId) {
+        return byItemId.containsKey(itemId);
+    }
+
+    public synchronized int size() {
+        return size;
     }
 
     /**
-     * Elimina un item y decrementa el tiempo total estimado
-     * @return The removed order item.
+     * @return Copia de las entradas en el orden en que el chef las va a cocinar.
      */
-    public OrderItem takeItem() throws InterruptedException {
-        OrderItem item = this.itemQueue.take();
-        long itemPrepTime = (long) (item.getPreparationTime() * 100);
-        totalEstimatedTime.addAndGet(-itemPrepTime);
-        return item;
+    public synchronized List<QueuedItem> snapshot() {
+        List<QueuedItem> ordered = new ArrayList<>(Arrays.asList(heap).subList(0, size));
+        ordered.sort(ORDER);
+        return ordered;
     }
 
     public double getTotalEstimatedTimeInMinutes() {
         return totalEstimatedTime.get() / 100.0;
     }
+
+    /**
+     * @return La ultima foto publicada de la cola (sin lock; puede no incluir un cambio en curso).
+     */
+    public Timeline getTimeline() {
+        return timeline;
+    }
+
+    /**
+     * Foto inmutable de la cola en el orden en que el chef la va a cocinar: ultimo inicio de cada entrada
+     * (minutos epoch; los empezados en -infinito) y minutos acumulados hasta cada una inclusive.
+     */
+    public static final class Timeline {
+        static final Timeline EMPTY = new Timeline(new double[0], new double[0]);
+
+        private final double[] latestStarts;
+        private final double[] minutesUpTo;
+
+        private Timeline(double[] latestStarts, double[] minutesUpTo) {
+            this.latestStarts = latestStarts;
+            this.minutesUpTo = minutesUpTo;
+        }
+
+        public int size() {
+            return latestStarts.length;
+        }
+
+        public double getLatestStart(int position) {
+            return latestStarts[position];
+        }
+
+        public double getMinutesUpTo(int position) {
+            return minutesUpTo[position];
+        }
+
+        public double getTotalMinutes() {
+            return latestStarts.length == 0 ? 0.0 : minutesUpTo[latestStarts.length - 1];
+        }
+    }
+
+    // Con el lock tomado; las colas de un chef son cortas, ordenar una copia es barato
+    private void publishTimeline() {
+        QueuedItem[] ordered = Arrays.copyOf(heap, size);
+        Arrays.sort(ordered, ORDER);
+        double[] latestStarts = new double[size];
+        double[] minutesUpTo = new double[size];
+        double total = 0.0;
+        for (int k = 0; k < size; k++) {
+            total += ordered[k].getMinutes();
+            latestStarts[k] = ordered[k].isStarted() ? Double.NEGATIVE_INFINITY : ordered[k].getPriority();
+            minutesUpTo[k] = total;
+        }
+        timeline = new Timeline(latestStarts, minutesUpTo);
+    }
+
+    private static final Comparator<QueuedItem> ORDER = Comparator.<QueuedItem>comparingInt(entry -> entry.isStarted() ? 0 : 1)
+            .thenComparingDouble(QueuedItem::getPriority)
+            .thenComparingLong(entry -> entry.sequence);
+
+    private void removeAt(int index) {
+        QueuedItem removed = heap[index];
+        QueuedItem last = heap[--size];
+        heap[size] = null;
+        if (index < size) {
+            heap[index] = last;
+            last.heapIndex = index;
+            siftDown(index);
+            if (heap[index] == last) {
+                siftUp(index);
+            }
+        }
+        removed.heapIndex = -1;
+        if (removed.getItemId() != null) {
+            byItemId.remove(removed.getItemId());
+        }
+        totalEstimatedTime.addAndGet(-removed.loadHundredths());
+        publishTimeline();
+    }
+
+    private void siftUp(int index) {
+        QueuedItem entry = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (ORDER.compare(entry, heap[parent]) >= 0) break;
+            heap[index] = heap[parent];
+            heap[index].heapIndex = index;
+            index = parent;
+        }
+        heap[index] = entry;
+        entry.heapIndex = index;
+    }
+
+    private void siftDown(int index) {
+        QueuedItem entry = heap[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < size && ORDER.compare(heap[right], heap[child]) < 0) {
+                child = right;
+            }
+            if (ORDER.compare(entry, heap[child]) <= 0) break;
+            heap[index] = heap[child];
+            heap[index].heapIndex = index;
+            index = child;
+        }
+        heap[index] = entry;
+        entry.heapIndex = index;
+    }
 }
@@ -0,0 +1,310 @@
+package com.restaurante.demo.service;
+
+import java.util.Arrays;
+
+/**
+ * Motor CPM sobre arrays primitivos: items indexados por int, adyacencia en formato CSR,
+ * cola de trabajo en un int[] y ES/EF/LS/LF/slack en double[].
+ * Todos los buffers se reutilizan entre llamadas (solo crecen), asi que resolver una orden no genera basura.
+ * No es thread-safe: cada thread usa su propia instancia.
+ *
+ * Uso: {@link #reset(int)}, despues {@link #addItem(Long, double, int)} por item seguido de
+ * {@link #addPrerequisite(long)} por cada prerequisito de ese item, y por ultimo {@link #solve()}.
+ * Si todos los items traen el rank topologico del catalogo ({@link CatalogDependencyGraph}) no hace falta
+ * el sorting topologico por orden: los items se ordenan por rank y no puede haber ciclos.
+ */
+public class CpmEngine {
+
+    private static final int INITIAL_ITEMS = 16;
+    private static final long NO_PRODUCT = Long.MIN_VALUE;
+
+    private int itemCount;
+    private int prerequisiteCount;
+    private int edgeCount;
+    private boolean ranked;
+    private double totalTime;
+
+    // Entrada por item
+    private long[] productIds = new long[INITIAL_ITEMS];
+    private double[] durations = new double[INITIAL_ITEMS];
+    private int[] ranks = new int[INITIAL_ITEMS];
+    private int[] prerequisiteStart = new int[INITIAL_ITEMS + 1];
+    private long[] prerequisites = new long[INITIAL_ITEMS];
+
+    // product id -> primer item con ese producto (open addressing), y cadena de items con el mismo producto
+    private long[] slotKeys = new long[INITIAL_ITEMS * 2];
+    private int[] slotItems = new int[INITIAL_ITEMS * 2];
+    private int[] slotStamps = new int[INITIAL_ITEMS * 2];
+    private int stamp;
+    private int[] nextSameProduct = new int[INITIAL_ITEMS];
+
+    // Grafo (CSR) y orden topologico
+    private int[] inDegree = new int[INITIAL_ITEMS];
+    private int[] successorStart = new int[INITIAL_ITEMS + 1];
+    private int[] successors = new int[INITIAL_ITEMS];
+    private int[] order = new int[INITIAL_ITEMS];
+
+    // Resultado
+    private double[] earlyStart = new double[INITIAL_ITEMS];
+    private double[] earlyFinish = new double[INITIAL_ITEMS];
+    private double[] lateStart = new double[INITIAL_ITEMS];
+    private double[] lateFinish = new double[INITIAL_ITEMS];
+    private double[] slack = new double[INITIAL_ITEMS];
+
+    /**
+     * Prepara el motor para una orden nueva de hasta {@code expectedItems} items.
+     */
+    public void reset(int expectedItems) {
+        ensureItemCapacity(expectedItems);
+        itemCount = 0;
+        prerequisiteCount = 0;
+        edgeCount = 0;
+        ranked = true;
+        totalTime = 0;
+        prerequisiteStart[0] = 0;
+    }
+
+    public int addItem(Long productId, double duration) {
+        return addItem(productId, duration, CatalogDependencyGraph.NOT_RANKED);
+    }
+
+    /**
+     * Agrega un item a la orden.
+     * @param productId Producto del item, o null si no tiene (no participa como prerequisito).
+     * @param duration Duracion total del item (preparationTime * quantity).
+     * @param rank Rank topologico del producto en el catalogo, o NOT_RANKED si no se conoce.
+     * @return The item index.
+     */
+    public int addItem(Long productId, double duration, int rank) {
+        ensureItemCapacity(itemCount + 1);
+        int index = itemCount++;
+        productIds[index] = productId == null ? NO_PRODUCT : productId;
+        durations[index] = duration;
+        ranks[index] = rank;
+        ranked &= rank != CatalogDependencyGraph.NOT_RANKED;
+        prerequisiteStart[index + 1] = prerequisiteCount;
+        return index;
+    }
+
+    /**
+     * Agrega un prerequisito (product id) al ultimo item agregado.
+     */
+    public void addPrerequisite(long prerequisiteProductId) {
+        if (prerequisiteCount == prerequisites.length) {
+            prerequisites = Arrays.copyOf(prerequisites, prerequisiteCount * 2);
+        }
+        prerequisites[prerequisiteCount++] = prerequisiteProductId;
+        prerequisiteStart[itemCount] = prerequisiteCount;
+    }
+
+    /**
+     * Corre el CPM: orden topologico (por rank o Kahn), forward pass y backward pass.
+     * Un prerequisito que no esta en la orden se ignora; si el producto aparece en varios items, todos son predecesores.
+     * @return false si hay un ciclo (los valores por item quedan sin calcular y el total es la suma de duraciones).
+     */
+    public boolean solve() {
+        int n = itemCount;
+        indexProducts();
+
+        // 1. Contar aristas (pred -> item) y armar el CSR de sucesores
+        Arrays.fill(successorStart, 0, n + 1, 0);
+        Arrays.fill(inDegree, 0, n, 0);
+        edgeCount = 0;
+        for (int item = 0; item < n; item++) {
+            for (int p = prerequisiteStart[item]; p < prerequisiteStart[item + 1]; p++) {
+                for (int pred = lookup(prerequisites[p]); pred >= 0; pred = nextSameProduct[pred]) {
+                    if (pred == item) continue;
+                    successorStart[pred + 1]++;
+                    inDegree[item]++;
+                    edgeCount++;
+                }
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            successorStart[i + 1] += successorStart[i];
+        }
+        if (successors.length < edgeCount) {
+            successors = new int[Math.max(edgeCount, successors.length * 2)];
+        }
+        // order[] se usa como cursor de escritura por predecesor antes de ser la cola
+        System.arraycopy(successorStart, 0, order, 0, n);
+        for (int item = 0; item < n; item++) {
+            for (int p = prerequisiteStart[item]; p < prerequisiteStart[item + 1]; p++) {
+                for (int pred = lookup(prerequisites[p]); pred >= 0; pred = nextSameProduct[pred]) {
+                    if (pred == item) continue;
+                    successors[order[pred]++] = item;
+                }
+            }
+        }
+
+        // 2. Sorting topologico: con ranks del catalogo alcanza con ordenar por rank
+        if (ranked) {
+            sortByRank();
+        } else if (!sortTopologically()) {
+            totalTime = 0;
+            for (int i = 0; i < n; i++) totalTime += durations[i];
+            return false;
+        }
+
+        // 3. Forward pass
+        Arrays.fill(earlyStart, 0, n, 0.0);
+        totalTime = 0;
+        for (int k = 0; k < n; k++) {
+            int u = order[k];
+            double finish = earlyStart[u] + durations[u];
+            earlyFinish[u] = finish;
+            totalTime = Math.max(totalTime, finish);
+            for (int e = successorStart[u]; e < successorStart[u + 1]; e++) {
+                int v = successors[e];
+                if (earlyStart[v] < finish) earlyStart[v] = finish;
+            }
+        }
+
+        // 4. Backward pass
+        for (int k = n - 1; k >= 0; k--) {
+            int u = order[k];
+            double finish = totalTime;
+            for (int e = successorStart[u]; e < successorStart[u + 1]; e++) {
+                finish = Math.min(finish, lateStart[successors[e]]);
+            }
+            lateFinish[u] = finish;
+            lateStart[u] = finish - durations[u];
+            slack[u] = lateStart[u] - earlyStart[u];
+        }
+        return true;
+    }
+
+    // Kahn: la cola es el mismo array del orden resultante
+    private boolean sortTopologically() {
+        int n = itemCount;
+        int head = 0, tail = 0;
+        for (int i = 0; i < n; i++) {
+            if (inDegree[i] == 0) order[tail++] = i;
+        }
+        while (head < tail) {
+            int current = order[head++];
+            for (int e = successorStart[current]; e < successorStart[current + 1]; e++) {
+                if (--inDegree[successors[e]] == 0) {
+                    order[tail++] = successors[e];
+                }
+            }
+        }
+        return tail == n;
+    }
+
+    // Insertion sort por rank: las ordenes tienen pocos items y una arista siempre va de rank menor a mayor
+    private void sortByRank() {
+        for (int i = 0; i < itemCount; i++) {
+            int item = i;
+            int j = i - 1;
+            while (j >= 0 && ranks[order[j]] > ranks[item]) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = item;
+        }
+    }
+
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    public double getTotalTime() {
+        return totalTime;
+    }
+
+    public double getDuration(int item) {
+        return durations[item];
+    }
+
+    public double getEarlyStart(int item) {
+        return earlyStart[item];
+    }
+
+    public double getEarlyFinish(int item) {
+        return earlyFinish[item];
+    }
+
+    public double getLateStart(int item) {
+        return lateStart[item];
+    }
+
+    public double getLateFinish(int item) {
+        return lateFinish[item];
+    }
+
+    public double getSlack(int item) {
+        return slack[item];
+    }
+
+    public int getSuccessorEnd(int item) {
+        return successorStart[item + 1];
+    }
+
+    public int getSuccessor(int position) {
+        return successors[position];
+    }
+
+    // Tabla product id -> item sin limpiar: las entradas de llamadas anteriores quedan invalidas al cambiar el stamp
+    private void indexProducts() {
+        int capacity = Integer.highestOneBit(Math.max(itemCount, 1) * 2) * 2;
+        if (slotKeys.length < capacity) {
+            slotKeys = new long[capacity];
+            slotItems = new int[capacity];
+            slotStamps = new int[capacity];
+            stamp = 0;
+        }
+        if (++stamp == 0) {
+            Arrays.fill(slotStamps, 0);
+            stamp = 1;
+        }
+        // Se insertan al reves para que la cadena quede en orden de aparicion
+        for (int item = itemCount - 1; item >= 0; item--) {
+            nextSameProduct[item] = -1;
+            long productId = productIds[item];
+            if (productId == NO_PRODUCT) continue;
+            int slot = findSlot(productId);
+            if (slotStamps[slot] == stamp) {
+                nextSameProduct[item] = slotItems[slot];
+            } else {
+                slotStamps[slot] = stamp;
+                slotKeys[slot] = productId;
+            }
+            slotItems[slot] = item;
+        }
+    }
+
+    private int lookup(long productId) {
+        int slot = findSlot(productId);
+        return slotStamps[slot] == stamp ? slotItems[slot] : -1;
+    }
+
+    private int findSlot(long productId) {
+        int mask = slotKeys.length - 1;
+        int slot = Long.hashCode(productId * 0x9E3779B97F4A7C15L) & mask;
+        while (slotStamps[slot] == stamp && slotKeys[slot] != productId) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void ensureItemCapacity(int items) {
+        if (items <= productIds.length) {
+            return;
+        }
+        int capacity = Math.max(items, productIds.length * 2);
+        productIds = Arrays.copyOf(productIds, capacity);
+        durations = Arrays.copyOf(durations, capacity);
+        ranks = Arrays.copyOf(ranks, capacity);
+        prerequisiteStart = Arrays.copyOf(prerequisiteStart, capacity + 1);
+        nextSameProduct = new int[capacity];
+        inDegree = new int[capacity];
+        successorStart = new int[capacity + 1];
+        order = new int[capacity];
+        earlyStart = new double[capacity];
+        earlyFinish = new double[capacity];
+        lateStart = new double[capacity];
+        lateFinish = new double[capacity];
+        slack = new double[capacity];
+    }
+}
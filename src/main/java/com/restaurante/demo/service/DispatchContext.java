@@ -0,0 +1,62 @@
+package com.restaurante.demo.service;
+
+import com.restaurante.demo.model.Chef;
+import com.restaurante.demo.model.Order;
+import com.restaurante.demo.model.OrderItem;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Todo lo que necesita la estrategia de ruteo para despachar los items de una orden.
+ * Se arma una vez por orden: schedule CPM ya calculado, plan de cocina y una sola foto del roster.
+ */
+@Getter
+public class DispatchContext {
+    private final Order order;
+    private final OrderSchedule schedule;
+    // Plan con recursos limitados (chef sugerido por item); vacio si el scheduler esta desactivado
+    private final KitchenPlan plan;
+    // Foto inmutable del roster (chefId -> chef) usada para todos los items de la orden
+    private final Map<Long, Chef> roster;
+    private final StationLoadIndex loadIndex;
+    // Momento del despacho en minutos epoch: ancla los plazos CPM (relativos a la orden) en el reloj de la cocina
+    private final double dispatchedAt;
+    @Getter(AccessLevel.NONE)
+    private final Function<Long, ChefWorkQueue> queueFactory;
+
+    public DispatchContext(Order order, OrderSchedule schedule, KitchenPlan plan, Map<Long, Chef> roster,
+                           StationLoadIndex loadIndex, Function<Long, ChefWorkQueue> queueFactory) {
+        this(order, schedule, plan, roster, loadIndex, queueFactory, QueuedItem.nowMinutes());
+    }
+
+    /**
+     * @param dispatchedAt Momento del despacho en minutos (p.ej. el reloj virtual de una simulacion).
+     */
+    public DispatchContext(Order order, OrderSchedule schedule, KitchenPlan plan, Map<Long, Chef> roster,
+                           StationLoadIndex loadIndex, Function<Long, ChefWorkQueue> queueFactory, double dispatchedAt) {
+        this.order = order;
+        this.schedule = schedule;
+        this.plan = plan;
+        this.roster = roster;
+        this.loadIndex = loadIndex;
+        this.queueFactory = queueFactory;
+        this.dispatchedAt = dispatchedAt;
+    }
+
+    /**
+     * @return Ultimo inicio del item que no atrasa su orden, en minutos epoch (prioridad en la cola del chef).
+     */
+    public double getLatestStart(OrderItem item) {
+        return dispatchedAt + schedule.getLateStart(item);
+    }
+
+    /**
+     * @return La cola del chef (se crea conectada al indice de carga si todavia no existe).
+     */
+    public ChefWorkQueue queueFor(Long chefId) {
+        return queueFactory.apply(chefId);
+    }
+}
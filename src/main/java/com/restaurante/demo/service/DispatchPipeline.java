@@ -0,0 +1,266 @@
+package com.restaurante.demo.service;
+
+import com.restaurante.demo.dto.DispatchStatsDTO;
+import com.restaurante.demo.model.Order;
+import com.restaurante.demo.model.OrderItem;
+import com.restaurante.demo.model.OrderStatus;
+import com.restaurante.demo.repository.OrderRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Etapa de ruteo desacoplada del checkout: placeOrder solo persiste la orden (PENDING) y deja su id en un buffer acotado;
+ * consumidores en virtual threads la rutean y persisten las asignaciones en lotes (una transaccion por lote).
+ * Backpressure explicito: el lugar en el buffer se reserva antes de guardar la orden, y si no hay lugar el checkout
+ * se rechaza (503) en vez de encolar trabajo que la cocina no puede absorber. Si la transaccion del checkout
+ * no confirma, el lugar se devuelve.
+ * Las ordenes que quedaron PENDING (p.ej. por un reinicio con el buffer cargado) se vuelven a encolar al arrancar.
+ * Una orden esta en el buffer o en un lote a lo sumo una vez (un reenvio al arrancar y el checkout de la misma orden
+ * no pueden rutearla dos veces en paralelo).
+ */
+@Component
+@Slf4j
+public class DispatchPipeline {
+
+    private record Ticket(Long orderId, long submittedAt) {
+    }
+
+    private final OrderRepository orderRepository;
+    private final OrderDispatcher orderDispatcher;
+    private final TransactionTemplate transaction;
+    private final boolean async;
+    private final int capacity;
+    private final int consumers;
+    private final int batchSize;
+
+    private final ArrayBlockingQueue<Ticket> buffer;
+    // Lugares libres del buffer, contando los reservados por checkouts que todavia no confirmaron
+    private final Semaphore slots;
+    // Ordenes encoladas o en proceso; un id repetido se descarta al encolar
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running = false;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong dispatched = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong lastLagNanos = new AtomicLong();
+    private final AtomicLong maxLagNanos = new AtomicLong();
+
+    @Autowired
+    public DispatchPipeline(OrderRepository orderRepository, OrderDispatcher orderDispatcher,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${kitchen.dispatch.async:true}") boolean async,
+                            @Value("${kitchen.dispatch.buffer-size:256}") int capacity,
+                            @Value("${kitchen.dispatch.consumers:2}") int consumers,
+                            @Value("${kitchen.dispatch.batch-size:16}") int batchSize) {
+        this.orderRepository = orderRepository;
+        this.orderDispatcher = orderDispatcher;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.async = async;
+        this.capacity = capacity;
+        this.consumers = Math.max(1, consumers);
+        this.batchSize = Math.max(1, batchSize);
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        this.slots = new Semaphore(capacity);
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!async || running) {
+            return;
+        }
+        running = true;
+        for (int i = 0; i < consumers; i++) {
+            workers.add(Thread.ofVirtual().name("dispatch-" + i).start(this::consume));
+        }
+        List<Long> pending = orderRepository.findIdsByStatus(OrderStatus.PENDING);
+        if (!pending.isEmpty()) {
+            // Puede haber mas pendientes que lugares: se encolan a medida que se liberan
+            workers.add(Thread.ofVirtual().name("dispatch-recovery").start(() -> {
+                try {
+                    for (Long orderId : pending) {
+                        slots.acquire();
+                        enqueue(orderId);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        log.info("Dispatch pipeline started: {} consumers, buffer {}, batch {}. {} pending orders resubmitted.",
+                consumers, capacity, batchSize, pending.size());
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        workers.forEach(Thread::interrupt);
+    }
+
+    /**
+     * Reserva un lugar en el buffer para una orden que se va a guardar. Dentro de una transaccion,
+     * el lugar se devuelve solo si la transaccion no confirma.
+     * @throws RejectedExecutionException Si el buffer esta lleno (la cocina no da abasto).
+     */
+    public void reserveSlot() {
+        if (!slots.tryAcquire()) {
+            rejected.incrementAndGet();
+            throw new RejectedExecutionException("Kitchen dispatch backlog is full (" + capacity + " orders). Try again shortly.");
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        slots.release();
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Encola la orden (con el lugar ya reservado) cuando su transaccion confirma.
+     */
+    public void submitAfterCommit(Long orderId) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            enqueue(orderId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                enqueue(orderId);
+            }
+        });
+    }
+
+    public DispatchStatsDTO getStats() {
+        Ticket oldest = buffer.peek();
+        long oldestWaitMs = oldest == null ? 0 : (System.nanoTime() - oldest.submittedAt()) / 1_000_000;
+        return new DispatchStatsDTO(async, buffer.size(), capacity, consumers,
+                submitted.get(), dispatched.get(), rejected.get(), failed.get(),
+                oldestWaitMs, lastLagNanos.get() / 1_000_000, maxLagNanos.get() / 1_000_000);
+    }
+
+    private void enqueue(Long orderId) {
+        if (!inFlight.add(orderId)) {
+            log.debug("Order {} is already queued for dispatch.", orderId);
+            slots.release();
+            return;
+        }
+        // Siempre hay lugar: cada orden entra con un lugar reservado
+        if (!buffer.offer(new Ticket(orderId, System.nanoTime()))) {
+            log.error("Dispatch buffer rejected reserved Order {}. It stays PENDING until the next restart.", orderId);
+            inFlight.remove(orderId);
+            slots.release();
+            return;
+        }
+        submitted.incrementAndGet();
+    }
+
+    private void consume() {
+        List<Ticket> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                batch.add(buffer.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            buffer.drainTo(batch, batchSize - 1);
+            slots.release(batch.size());
+            try {
+                process(batch);
+            } finally {
+                batch.forEach(ticket -> inFlight.remove(ticket.orderId()));
+            }
+            batch.clear();
+        }
+    }
+
+    // Un lote = una transaccion; si falla se deshace el ruteo en memoria de este lote y se reintenta orden por orden
+    private void process(List<Ticket> batch) {
+        List<Order> claimed = new ArrayList<>();
+        try {
+            Integer count = transaction.execute(status -> dispatchBatch(batch, claimed));
+            dispatched.addAndGet(count == null ? 0 : count);
+            recordLag(batch);
+        } catch (Exception e) {
+            releaseAssignments(claimed);
+            if (batch.size() > 1) {
+                log.warn("Dispatch batch of {} orders failed. Retrying one by one.", batch.size(), e);
+                batch.forEach(ticket -> process(List.of(ticket)));
+            } else {
+                failed.incrementAndGet();
+                log.error("Dispatch failed for Order {}. It stays PENDING until the next restart.", batch.get(0).orderId(), e);
+            }
+        }
+    }
+
+    private int dispatchBatch(List<Ticket> batch, List<Order> claimed) {
+        int count = 0;
+        for (Ticket ticket : batch) {
+            Order order = orderRepository.findById(ticket.orderId()).orElse(null);
+            if (order == null || order.getStatus() != OrderStatus.PENDING) {
+                // Ya despachada (p.ej. reenviada al arrancar) o borrada
+                continue;
+            }
+            claimed.add(order);
+            orderDispatcher.dispatchAll(order);
+            order.handleRequest();
+            orderRepository.save(order);
+            count++;
+        }
+        return count;
+    }
+
+    // Saca de las colas solo lo que asigno este lote: cada item de una orden PENDING que tomo, de la cola del chef que le toco
+    private void releaseAssignments(List<Order> claimed) {
+        for (Order order : claimed) {
+            for (OrderItem item : order.getItems()) {
+                if (item.getAssignedChef() == null) {
+                    continue;
+                }
+                ChefWorkQueue queue = orderDispatcher.getChefQueues().get(item.getAssignedChef().getUserId());
+                if (queue != null) {
+                    queue.remove(item.getId());
+                }
+            }
+        }
+    }
+
+    private void recordLag(List<Ticket> batch) {
+        long now = System.nanoTime();
+        long lag = 0;
+        for (Ticket ticket : batch) {
+            lag = Math.max(lag, now - ticket.submittedAt());
+        }
+        lastLagNanos.set(lag);
+        maxLagNanos.accumulateAndGet(lag, Math::max);
+    }
+}
@@ -0,0 +1,218 @@
+package com.restaurante.demo.service;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * FP-Growth sobre un FP-tree incremental.
+ * El arbol se construye una sola vez; las ordenes nuevas se insertan como un camino mas, sin volver a leer el historial.
+ * Los items se ordenan con un ranking fijo: en build() por frecuencia descendente (mejor compresion)
+ * y los items nuevos que llegan despues se agregan al final del ranking. Cualquier orden total fijo da el mismo resultado.
+ * Con un ForkJoinPool cada item del primer nivel se mina en paralelo (sus arboles condicionales son independientes).
+ */
+public class FPGrowthMiner implements FrequentItemsetMiner {
+
+    private final Map<Long, Integer> itemRank = new HashMap<>();
+    private final ForkJoinPool pool;
+    private FPTree tree = new FPTree();
+    private int transactionCount = 0;
+
+    public FPGrowthMiner() {
+        this(null);
+    }
+
+    /**
+     * @param pool Pool para minar el primer nivel en paralelo, o null para minar en el thread que llama.
+     */
+    public FPGrowthMiner(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public synchronized void build(Collection<Set<Long>> transactions) {
+        itemRank.clear();
+        tree = new FPTree();
+        transactionCount = 0;
+
+        // 1. Ranking inicial por frecuencia descendente (desempate por id para que sea determinista)
+        Map<Long, Integer> counts = new HashMap<>();
+        for (Set<Long> transaction : transactions) {
+            for (Long item : transaction) {
+                counts.merge(item, 1, Integer::sum);
+            }
+        }
+        counts.entrySet().stream()
+                .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .forEach(entry -> itemRank.put(entry.getKey(), itemRank.size()));
+
+        // 2. Insertar cada transaccion como un camino del arbol
+        transactions.forEach(this::insert);
+    }
+
+    @Override
+    public synchronized void addTransaction(Set<Long> transaction) {
+        for (Long item : transaction) {
+            itemRank.putIfAbsent(item, itemRank.size());
+        }
+        insert(transaction);
+    }
+
+    @Override
+    public synchronized int getTransactionCount() {
+        return transactionCount;
+    }
+
+    @Override
+    public synchronized Map<Set<Long>, Double> findFrequentItemsets(double minSupport) {
+        Map<Set<Long>, Double> frequentItemsets = new HashMap<>();
+        if (transactionCount == 0) {
+            return frequentItemsets;
+        }
+        int minCount = FrequentItemsetMiner.minimumSupportCount(minSupport, transactionCount);
+        if (pool == null) {
+            mine(tree, Collections.emptySet(), minCount, frequentItemsets);
+        } else {
+            mineInParallel(minCount, frequentItemsets);
+        }
+        return frequentItemsets;
+    }
+
+    /**
+     * Un task por item frecuente del header table; los resultados parciales se juntan al final.
+     * El arbol no cambia mientras tanto porque el thread que llama tiene el lock del miner.
+     */
+    private void mineInParallel(int minCount, Map<Set<Long>, Double> result) {
+        List<Callable<Map<Set<Long>, Double>>> tasks = new ArrayList<>();
+        for (Map.Entry<Long, Integer> header : tree.counts.entrySet()) {
+            if (header.getValue() < minCount) continue;
+            Long item = header.getKey();
+            int support = header.getValue();
+            tasks.add(() -> {
+                Map<Set<Long>, Double> partial = new HashMap<>();
+                mineItem(tree, Collections.emptySet(), item, support, minCount, partial);
+                return partial;
+            });
+        }
+        try {
+            for (Future<Map<Set<Long>, Double>> partial : pool.invokeAll(tasks)) {
+                result.putAll(partial.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("FP-Growth mining interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("FP-Growth mining failed", e.getCause());
+        }
+    }
+
+    private void insert(Set<Long> transaction) {
+        long[] path = transaction.stream()
+                .sorted(Comparator.comparingInt(itemRank::get))
+                .mapToLong(Long::longValue)
+                .toArray();
+        tree.add(path, path.length, 1);
+        transactionCount++;
+    }
+
+    /**
+     * Recorre el header table: cada item frecuente extiende el prefijo y se mina su arbol condicional.
+     * Los arboles condicionales solo contienen ancestros, asi que cada itemset se encuentra una sola vez.
+     */
+    private void mine(FPTree current, Set<Long> prefix, int minCount, Map<Set<Long>, Double> result) {
+        for (Map.Entry<Long, Integer> header : current.counts.entrySet()) {
+            if (header.getValue() >= minCount) {
+                mineItem(current, prefix, header.getKey(), header.getValue(), minCount, result);
+            }
+        }
+    }
+
+    private void mineItem(FPTree current, Set<Long> prefix, Long item, int support, int minCount, Map<Set<Long>, Double> result) {
+        Set<Long> itemset = new HashSet<>(prefix);
+        itemset.add(item);
+        result.put(itemset, (double) support / transactionCount);
+
+        FPTree conditional = buildConditionalTree(current, item, minCount);
+        if (!conditional.counts.isEmpty()) {
+            mine(conditional, itemset, minCount, result);
+        }
+    }
+
+    private FPTree buildConditionalTree(FPTree current, Long item, int minCount) {
+        // 1. Base de patrones condicionales: el camino desde la raiz hasta cada nodo del item
+        List<long[]> paths = new ArrayList<>();
+        List<Integer> pathCounts = new ArrayList<>();
+        Map<Long, Integer> conditionalCounts = new HashMap<>();
+        for (Node node = current.heads.get(item); node != null; node = node.next) {
+            int depth = 0;
+            for (Node p = node.parent; p.parent != null; p = p.parent) depth++;
+            if (depth == 0) continue;
+
+            long[] path = new long[depth];
+            int i = depth;
+            for (Node p = node.parent; p.parent != null; p = p.parent) {
+                path[--i] = p.item;
+                conditionalCounts.merge(p.item, node.count, Integer::sum);
+            }
+            paths.add(path);
+            pathCounts.add(node.count);
+        }
+
+        // 2. Insertar los caminos filtrados por los items que siguen siendo frecuentes
+        FPTree conditional = new FPTree();
+        long[] filtered = new long[16];
+        for (int p = 0; p < paths.size(); p++) {
+            long[] path = paths.get(p);
+            if (filtered.length < path.length) filtered = new long[path.length];
+            int length = 0;
+            for (long pathItem : path) {
+                if (conditionalCounts.get(pathItem) >= minCount) {
+                    filtered[length++] = pathItem;
+                }
+            }
+            if (length > 0) {
+                conditional.add(filtered, length, pathCounts.get(p));
+            }
+        }
+        return conditional;
+    }
+
+    private static final class Node {
+        final long item;
+        final Node parent;
+        int count;
+        Map<Long, Node> children;
+        Node next; // node-link al siguiente nodo con el mismo item
+
+        Node(long item, Node parent) {
+            this.item = item;
+            this.parent = parent;
+        }
+    }
+
+    private static final class FPTree {
+        final Node root = new Node(-1, null);
+        final Map<Long, Node> heads = new HashMap<>();
+        final Map<Long, Integer> counts = new HashMap<>();
+
+        void add(long[] path, int length, int count) {
+            Node node = root;
+            for (int i = 0; i < length; i++) {
+                long item = path[i];
+                if (node.children == null) node.children = new HashMap<>();
+                Node child = node.children.get(item);
+                if (child == null) {
+                    child = new Node(item, node);
+                    node.children.put(item, child);
+                    child.next = heads.get(item);
+                    heads.put(item, child);
+                }
+                child.count += count;
+                counts.merge(item, count, Integer::sum);
+                node = child;
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.restaurante.demo.service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Estrategia de mineria de itemsets frecuentes usada por RecommendationService.
+ * Las implementaciones se construyen una vez con el historial y luego reciben las ordenes nuevas de forma incremental.
+ */
+public interface FrequentItemsetMiner {
+
+    /**
+     * Descarta el estado actual y construye el miner con el historial completo.
+     * @param transactions Las transacciones (conjuntos de product ids).
+     */
+    void build(Collection<Set<Long>> transactions);
+
+    /**
+     * Agrega una transaccion sin reconstruir todo el miner.
+     * @param transaction The product ids of the transaction.
+     */
+    void addTransaction(Set<Long> transaction);
+
+    int getTransactionCount();
+
+    /**
+     * @param minSupport Soporte minimo (fraccion de transacciones).
+     * @return Itemsets frecuentes con su soporte.
+     */
+    Map<Set<Long>, Double> findFrequentItemsets(double minSupport);
+
+    default List<AssociationRule> generateRules(double minSupport, double minConfidence) {
+        return AssociationRule.fromFrequentItemsets(findFrequentItemsets(minSupport), minConfidence);
+    }
+
+    /**
+     * Minimo conteo que cumple count / numTransactions >= minSupport, con la misma aritmetica que Apriori.
+     */
+    static int minimumSupportCount(double minSupport, int numTransactions) {
+        int count = Math.max(1, (int) Math.ceil(minSupport * numTransactions) - 1);
+        while ((double) count / numTransactions < minSupport) {
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,67 @@
+package com.restaurante.demo.service;
+
+import com.restaurante.demo.model.ChefStation;
+import com.restaurante.demo.model.OrderItem;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Resultado del {@link KitchenScheduler} para una orden: inicio/fin planificados y chef de cada item
+ * (indexados por la posicion del item en el {@link OrderSchedule}), la espera por estacion y el ETA de la orden.
+ * Los tiempos son minutos desde ahora.
+ */
+public class KitchenPlan {
+
+    private static final KitchenPlan EMPTY = new KitchenPlan(OrderSchedule.empty(), new double[0], new double[0],
+            new Long[0], new EnumMap<>(ChefStation.class), 0.0);
+
+    private final OrderSchedule schedule;
+    private final double[] plannedStart;
+    private final double[] plannedFinish;
+    private final Long[] chefIds;
+    private final Map<ChefStation, Double> stationWait;
+    @Getter
+    private final double eta;
+
+    public KitchenPlan(OrderSchedule schedule, double[] plannedStart, double[] plannedFinish, Long[] chefIds,
+                       Map<ChefStation, Double> stationWait, double eta) {
+        this.schedule = schedule;
+        this.plannedStart = plannedStart;
+        this.plannedFinish = plannedFinish;
+        this.chefIds = chefIds;
+        this.stationWait = Collections.unmodifiableMap(stationWait);
+        this.eta = eta;
+    }
+
+    public static KitchenPlan empty() {
+        return EMPTY;
+    }
+
+    public double getPlannedStart(OrderItem item) {
+        int i = schedule.indexOf(item);
+        return i < 0 ? 0.0 : plannedStart[i];
+    }
+
+    public double getPlannedFinish(OrderItem item) {
+        int i = schedule.indexOf(item);
+        return i < 0 ? 0.0 : plannedFinish[i];
+    }
+
+    /**
+     * @return El chef planificado para el item, o null si no se pudo planificar (sin estacion o sin chefs).
+     */
+    public Long getPlannedChefId(OrderItem item) {
+        int i = schedule.indexOf(item);
+        return i < 0 ? null : chefIds[i];
+    }
+
+    /**
+     * @return Espera (minutos) hasta que algun chef de cada estacion usada por la orden queda libre.
+     */
+    public Map<ChefStation, Double> getStationWait() {
+        return stationWait;
+    }
+}
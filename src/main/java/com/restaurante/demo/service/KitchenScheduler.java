@@ -0,0 +1,192 @@
+package com.restaurante.demo.service;
+
+import com.restaurante.demo.model.Chef;
+import com.restaurante.demo.model.ChefStation;
+import com.restaurante.demo.model.OrderItem;
+import com.restaurante.demo.model.Product;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * List scheduling de los items de una orden con recursos limitados: cada estacion tiene solo sus chefs
+ * y cada chef arranca con el backlog que ya tiene en su cola.
+ * A diferencia del CPM (cocineros infinitos), un item empieza cuando terminaron sus prerequisitos Y
+ * algun chef de su estacion esta libre. Los items listos se toman por menor late start del CPM
+ * (el camino critico primero) y van al chef de la estacion que los termina antes.
+ * Las colas son EDF: un item nuevo no espera todo el backlog del chef, solo lo que ya empezo y lo que tiene
+ * un ultimo inicio anterior al suyo (el resto queda detras).
+ *
+ * Trabaja sobre una foto de las cargas ({@link ChefCapacity}), no toca las colas reales.
+ * Como la foto sale de las colas vivas, volver a planificar despues de que se completan items es
+ * simplemente llamar de nuevo a {@link #plan}.
+ * La eficiencia se usa igual que en el ruteo: multiplica los minutos (1.0 es promedio).
+ */
+@Component
+public class KitchenScheduler {
+
+    /**
+     * Capacidad de un chef en la foto: su eficiencia, los minutos de trabajo que ya tiene encolados y,
+     * si se conoce, la linea de tiempo EDF de su cola.
+     * @param latestStarts Ultimo inicio de cada entrada en minutos desde la foto, ascendente (los empezados en -infinito),
+     *                     o null si no se conoce el orden de la cola (todo el backlog va antes).
+     * @param minutesUpTo Minutos acumulados de la cola hasta cada entrada inclusive (paralelo a latestStarts).
+     */
+    public record ChefCapacity(Long chefId, double efficiency, double backlogMinutes,
+                               double[] latestStarts, double[] minutesUpTo) {
+
+        public ChefCapacity(Long chefId, double efficiency, double backlogMinutes) {
+            this(chefId, efficiency, backlogMinutes, null, null);
+        }
+
+        /**
+         * @param latestStart Ultimo inicio del item a insertar, en minutos desde la foto.
+         * @return Minutos hasta que el chef termina lo que va antes del item en su cola EDF.
+         */
+        double availableAt(double latestStart) {
+            if (latestStarts == null) {
+                return backlogMinutes * efficiency;
+            }
+            // Las entradas con el mismo plazo llegaron antes: tambien van adelante
+            int lo = 0, hi = latestStarts.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (latestStarts[mid] <= latestStart) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo == 0 ? 0.0 : minutesUpTo[lo - 1] * efficiency;
+        }
+    }
+
+    /**
+     * Arma la foto de capacidad por estacion a partir de los chefs y la ultima {@link ChefWorkQueue.Timeline}
+     * publicada por cada cola (plazos relativos a ahora). No toma locks de las colas.
+     */
+    public static Map<ChefStation, List<ChefCapacity>> capacities(Collection<Chef> chefs, Map<Long, ChefWorkQueue> queues) {
+        return capacities(chefs, queues, QueuedItem.nowMinutes());
+    }
+
+    /**
+     * @param nowMinutes Momento de la foto en la escala de las prioridades de las colas (minutos epoch o reloj simulado).
+     */
+    public static Map<ChefStation, List<ChefCapacity>> capacities(Collection<Chef> chefs, Map<Long, ChefWorkQueue> queues,
+                                                                 double nowMinutes) {
+        Map<ChefStation, List<ChefCapacity>> byStation = new EnumMap<>(ChefStation.class);
+        for (Chef chef : chefs) {
+            if (chef.getStation() == null) continue;
+            ChefWorkQueue queue = queues.get(chef.getUserId());
+            // La foto publicada por la cola: no se toma su lock
+            ChefWorkQueue.Timeline timeline = queue == null ? ChefWorkQueue.Timeline.EMPTY : queue.getTimeline();
+            double[] latestStarts = new double[timeline.size()];
+            double[] minutesUpTo = new double[timeline.size()];
+            for (int k = 0; k < timeline.size(); k++) {
+                latestStarts[k] = timeline.getLatestStart(k) - nowMinutes;
+                minutesUpTo[k] = timeline.getMinutesUpTo(k);
+            }
+            double backlog = timeline.getTotalMinutes();
+            byStation.computeIfAbsent(chef.getStation(), k -> new ArrayList<>())
+                    .add(new ChefCapacity(chef.getUserId(), chef.getEfficiency(), backlog, latestStarts, minutesUpTo));
+        }
+        return byStation;
+    }
+
+    /**
+     * Planifica los items de la orden sobre la foto de capacidad.
+     * @param schedule CPM de la orden (prioridades y aristas de prerequisitos).
+     * @param capacities Chefs por estacion con su backlog actual.
+     * @return The plan (inicio/fin/chef por item, espera por estacion y ETA).
+     */
+    public KitchenPlan plan(OrderSchedule schedule, Map<ChefStation, List<ChefCapacity>> capacities) {
+        int n = schedule.size();
+        if (n == 0) {
+            return KitchenPlan.empty();
+        }
+
+        // Por chef: fin del ultimo item de esta orden y minutos de esta orden ya asignados (no se modifica la foto)
+        Map<ChefStation, double[]> lastFinish = new EnumMap<>(ChefStation.class);
+        Map<ChefStation, double[]> plannedMinutes = new EnumMap<>(ChefStation.class);
+        // Espera hasta que la estacion vacia su cola actual: cota superior, con EDF los items urgentes se adelantan
+        Map<ChefStation, Double> stationWait = new EnumMap<>(ChefStation.class);
+        capacities.forEach((station, chefs) -> {
+            double wait = Double.MAX_VALUE;
+            for (ChefCapacity chef : chefs) {
+                wait = Math.min(wait, chef.backlogMinutes() * chef.efficiency());
+            }
+            lastFinish.put(station, new double[chefs.size()]);
+            plannedMinutes.put(station, new double[chefs.size()]);
+            if (!chefs.isEmpty()) stationWait.put(station, wait);
+        });
+
+        int[] pending = new int[n];
+        for (int i = 0; i < n; i++) {
+            for (int e = schedule.getSuccessorStart(i); e < schedule.getSuccessorEnd(i); e++) {
+                pending[schedule.getSuccessor(e)]++;
+            }
+        }
+        double[] release = new double[n];
+        double[] plannedStart = new double[n];
+        double[] plannedFinish = new double[n];
+        Long[] chefIds = new Long[n];
+        Map<ChefStation, Double> usedStationWait = new EnumMap<>(ChefStation.class);
+
+        // Prioridad: menor late start del CPM; desempate por posicion para que sea determinista
+        PriorityQueue<Integer> ready = new PriorityQueue<>(
+                Comparator.<Integer>comparingDouble(schedule::getLateStart).thenComparingInt(i -> i));
+        for (int i = 0; i < n; i++) {
+            if (pending[i] == 0) ready.add(i);
+        }
+
+        double eta = 0;
+        while (!ready.isEmpty()) {
+            int i = ready.poll();
+            OrderItem item = schedule.getItem(i);
+            ChefStation station = item.getProduct() instanceof Product product ? product.getRequiredStation() : null;
+            List<ChefCapacity> chefs = station == null ? null : capacities.get(station);
+
+            if (chefs == null || chefs.isEmpty()) {
+                // Sin estacion o sin chefs: se planifica sin restriccion de recursos (igual que el CPM)
+                plannedStart[i] = release[i];
+                plannedFinish[i] = release[i] + duration(item, 1.0);
+            } else {
+                double[] finished = lastFinish.get(station);
+                double[] planned = plannedMinutes.get(station);
+                double latestStart = schedule.getLateStart(i);
+                int best = -1;
+                double bestStart = 0;
+                double bestFinish = Double.MAX_VALUE;
+                for (int c = 0; c < chefs.size(); c++) {
+                    ChefCapacity chef = chefs.get(c);
+                    // Va detras de lo que ya tenia con plazo anterior y de lo que esta orden ya le dio
+                    double start = Math.max(release[i], Math.max(finished[c],
+                            chef.availableAt(latestStart) + planned[c]));
+                    double finish = start + duration(item, chef.efficiency());
+                    if (best < 0 || finish < bestFinish || (finish == bestFinish && chef.chefId() < chefs.get(best).chefId())) {
+                        best = c;
+                        bestStart = start;
+                        bestFinish = finish;
+                    }
+                }
+                plannedStart[i] = bestStart;
+                plannedFinish[i] = bestFinish;
+                finished[best] = bestFinish;
+                planned[best] += duration(item, chefs.get(best).efficiency());
+                chefIds[i] = chefs.get(best).chefId();
+                usedStationWait.put(station, stationWait.get(station));
+            }
+            eta = Math.max(eta, plannedFinish[i]);
+
+            for (int e = schedule.getSuccessorStart(i); e < schedule.getSuccessorEnd(i); e++) {
+                int successor = schedule.getSuccessor(e);
+                release[successor] = Math.max(release[successor], plannedFinish[i]);
+                if (--pending[successor] == 0) {
+                    ready.add(successor);
+                }
+            }
+        }
+        return new KitchenPlan(schedule, plannedStart, plannedFinish, chefIds, usedStationWait, eta);
+    }
+
+    private static double duration(OrderItem item, double efficiency) {
+        return item.getPreparationTime() * item.getQuantity() * efficiency;
+    }
+}
@@ -1,129 +1,63 @@
 package com.restaurante.demo.service;
 
-import com.restaurante.demo.dto.ItemStatusUpdateDTO;
 import com.restaurante.demo.model.*;
-import com.restaurante.demo.repository.ChefRepository;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.support.TransactionSynchronization;
-import org.springframework.transaction.support.TransactionSynchronizationManager;
-
-import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 @Slf4j
 public class LeastLoadedChefStrategy implements RoutingStrategy {
 
-    private final ChefRepository chefRepository;
-    private final TimeEstimationService timeEstimationService;
-    private static final double URGENCY_WEIGHT = 5.0;
-
-    @Autowired
-    public LeastLoadedChefStrategy(ChefRepository chefRepository, TimeEstimationService timeEstimationService) {
-        this.chefRepository = chefRepository;
-        this.timeEstimationService = timeEstimationService;
-    }
-
     @Override
-    public void route(Order order, OrderItem item, ConcurrentHashMap<Long, ChefWorkQueue> chefQueues, SimpMessagingTemplate messagingTemplate) {
-        // 1. Calculate routing time via Time Estimation Service
-        try {
-            timeEstimationService.calculateEstimatedCompletionTime(order);
-        } catch (Exception e) {
-            log.warn("CPM Calculation failed for order {}. Proceeding with fallback.", order.getOrderId());
-        }
-        
+    public Chef route(DispatchContext context, OrderItem item) {
+        // 1. El schedule CPM y la foto del roster ya vienen en el contexto (una vez por orden)
         ProductComponent component = item.getProduct(); 
 
         if (!(component instanceof Product)) {
             log.error("Error: Attempted to route composite product {}", component.getName());
-            return;
+            return null;
         }
 
         Product product = (Product) component;
         ChefStation requiredStation = product.getRequiredStation();
         if (requiredStation == null) {
             log.warn("Warning: Product {} has no required station.", product.getName());
-            return;
-        }
-
-        List<Chef> availableChefs = chefRepository.findByStation(requiredStation);
-
-        if (availableChefs.isEmpty()) {
-            log.error("CRITICAL: No chefs found for station: {}", requiredStation);
-            return;
+            return null;
         }
 
+        // 2. Si el KitchenScheduler planifico el item, se respeta su chef (minimiza el fin del item con prerequisitos y backlog)
         Chef bestChef = null;
-        double bestScore = Double.MAX_VALUE;
-
-        // 2. Iterate chefs to find least loaded
-        for (Chef chef : availableChefs) {
-            ChefWorkQueue queue = chefQueues.computeIfAbsent(chef.getUserId(), k -> new ChefWorkQueue());
-            
-            double effectiveLoad = queue.getTotalEstimatedTimeInMinutes() * chef.getEfficiency();
-            double itemSlack = item.getSlack();
-            
-            double adjustedSlack = Math.max(0, itemSlack);
-            double urgencyFactor = 1.0 / (1.0 + adjustedSlack); 
-            double urgencyBonus = urgencyFactor * URGENCY_WEIGHT; 
-            double placementScore = effectiveLoad - urgencyBonus;
-
-            log.debug("Chef {} ({}): Load={:.2f}, Eff={:.2f} | Score={:.2f}",
-                    chef.getUserId(), requiredStation, queue.getTotalEstimatedTimeInMinutes(), chef.getEfficiency(), placementScore);
-
-            if (placementScore < bestScore) {
-                bestScore = placementScore;
-                bestChef = chef;
+        Long plannedChefId = context.getPlan().getPlannedChefId(item);
+        if (plannedChefId != null) {
+            Chef planned = context.getRoster().get(plannedChefId);
+            if (planned != null && planned.getStation() == requiredStation) {
+                bestChef = planned;
             }
         }
 
-        // 3. Assign best chef and NOTIFY
+        // 2b. El menos cargado de la estacion sale del indice ordenado por carga efectiva (O(log n)); el chef del plan
+        // solo gana si con la carga vigente termina el item no despues que el. Elegir y encolar es atomico por estacion:
+        // dos placeOrder concurrentes (con o sin plan) no eligen con la misma lectura de carga.
+        // En la cola el item se ordena por su ultimo inicio CPM: primero lo critico, despues lo que tiene holgura.
+        double latestStart = context.getLatestStart(item);
+        double itemMinutes = item.getPreparationTime() * item.getQuantity();
+        bestChef = context.getLoadIndex().reserve(requiredStation, bestChef, itemMinutes,
+                chef -> context.queueFor(chef.getUserId()).addItem(item, latestStart));
+
+        // 3. Assign best chef (la notificacion a cocina la arma el dispatcher para toda la orden)
         if (bestChef != null) {
-            ChefWorkQueue targetQueue = chefQueues.get(bestChef.getUserId());
-            targetQueue.addItem(item);
+            ChefWorkQueue targetQueue = context.queueFor(bestChef.getUserId());
             
             // Set status and PERSIST the assignment
             item.setStatus(OrderStatus.PREPARING);
             item.setAssignedChef(bestChef);
             
-            log.info(">>> Item '{}' assigned to Chef {} ({}). New Queue Load: {:.2f} mins.",
+            log.info(">>> Item '{}' assigned to Chef {} ({}). New Queue Load: {} mins.",
                 item.getProduct().getName(), bestChef.getNombre(), bestChef.getUserId(), targetQueue.getTotalEstimatedTimeInMinutes()
             );
-
-            // WebSocket Notification
-            ItemStatusUpdateDTO updateDTO = new ItemStatusUpdateDTO(
-                item.getId(),
-                order.getOrderId(),
-                bestChef.getUserId(),
-                bestChef.getNombre(),
-                bestChef.getStation(),
-                OrderStatus.PREPARING,
-                product.getName(),
-                product.getPreparationTime() * item.getQuantity()
-            );
-
-            sendAfterCommit(messagingTemplate, "/topic/kitchen/orders", updateDTO);
-
-        } else {
-            log.error("Error: Could not find a best chef for station {}", requiredStation);
-        }
-    }
-
-    private void sendAfterCommit(SimpMessagingTemplate template, String destination, Object payload) {
-        if (TransactionSynchronizationManager.isActualTransactionActive()) {
-            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
-                @Override
-                public void afterCommit() {
-                    template.convertAndSend(destination, payload);
-                    log.debug("WS Message sent to {} (After Commit)", destination);
-                }
-            });
         } else {
-            template.convertAndSend(destination, payload);
+            log.error("CRITICAL: No chefs found for station: {}", requiredStation);
         }
+        return bestChef;
     }
-}
\ No newline at end of file
+}
@@ -1,19 +1,31 @@
 package com.restaurante.demo.service;
 
 
+import com.restaurante.demo.dto.ChefQueueItemDTO;
+import com.restaurante.demo.dto.ItemStatusUpdateDTO;
 import com.restaurante.demo.model.Chef;
+import com.restaurante.demo.model.ChefStation;
 import com.restaurante.demo.model.Order;
 import com.restaurante.demo.model.OrderItem;
-import com.restaurante.demo.repository.ChefRepository;
+import com.restaurante.demo.model.OrderStatus;
+import com.restaurante.demo.repository.ActiveItemView;
+import com.restaurante.demo.repository.OrderItemRepository;
 import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Slf4j // Report Section 6.3
@@ -22,46 +34,260 @@ public class OrderDispatcher {
     // Report Section 2.2.2: ConcurrentHashMap used for thread-safe access to station queues
     private final ConcurrentHashMap<Long, ChefWorkQueue> chefQueues = new ConcurrentHashMap<>();
     private final RoutingStrategy routingStrategy;
-    private final ChefRepository chefRepository;
+    private final ChefRoster chefRoster;
     private final SimpMessagingTemplate messagingTemplate;
+    private final TimeEstimationService timeEstimationService;
+    private final KitchenScheduler kitchenScheduler;
+    private final boolean schedulerEnabled;
+    private final OrderItemRepository orderItemRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    // Chefs de cada estacion ordenados por carga efectiva; lo mantienen al dia las propias colas
+    private volatile StationLoadIndex loadIndex = new StationLoadIndex();
 
     @Autowired
-    public OrderDispatcher(RoutingStrategy routingStrategy, ChefRepository chefRepository, SimpMessagingTemplate messagingTemplate) {
+    public OrderDispatcher(RoutingStrategy routingStrategy, ChefRoster chefRoster, SimpMessagingTemplate messagingTemplate,
+                           TimeEstimationService timeEstimationService, KitchenScheduler kitchenScheduler,
+                           @Value("${kitchen.scheduler.enabled:true}") boolean schedulerEnabled,
+                           OrderItemRepository orderItemRepository, PlatformTransactionManager transactionManager) {
         this.routingStrategy = routingStrategy;
-        this.chefRepository = chefRepository;
+        this.chefRoster = chefRoster;
         this.messagingTemplate = messagingTemplate;
+        this.timeEstimationService = timeEstimationService;
+        this.kitchenScheduler = kitchenScheduler;
+        this.schedulerEnabled = schedulerEnabled;
+        this.orderItemRepository = orderItemRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        // Cambios de estacion/eficiencia reubican al chef en el indice de carga
+        chefRoster.addListener(chef -> loadIndex.update(chef, getQueueForChef(chef.getUserId())::getTotalEstimatedTimeInMinutes));
     }
 
     @PostConstruct
     private void initializeQueues() {
         log.info("Initializing Chef Queues...");
-        List<Chef> allChefs = chefRepository.findAll();
-        allChefs.forEach(chef -> {
-            chefQueues.put(chef.getUserId(), new ChefWorkQueue());
+        loadIndex = new StationLoadIndex();
+        chefRoster.getAll().forEach(chef -> {
+            ChefWorkQueue queue = getQueueForChef(chef.getUserId());
+            loadIndex.update(chef, queue::getTotalEstimatedTimeInMinutes);
             log.debug("Created queue for Chef ID: {}", chef.getUserId());
         });
+        recoverInFlightItems();
+    }
+
+    /**
+     * Recarga en las colas los items que ya estaban asignados y sin terminar antes del reinicio,
+     * asi la carga de cada chef arranca con su backlog real. Corre en el arranque, antes de aceptar ordenes.
+     */
+    private void recoverInFlightItems() {
+        long start = System.nanoTime();
+        int[] recovered = {0};
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<ActiveItemView> items = orderItemRepository.streamAssignedItems(
+                        List.of(OrderStatus.PENDING, OrderStatus.PREPARING))) {
+                    items.forEach(item -> {
+                        QueuedItem entry = new QueuedItem(item.getItemId(), item.getOrderId(), item.getProductName(),
+                                item.getPreparationTime() * item.getQuantity());
+                        if (getQueueForChef(item.getChefId()).add(entry)) {
+                            recovered[0]++;
+                        }
+                    });
+                }
+            });
+        } catch (Exception e) {
+            log.error("Queue recovery failed. Chef queues start empty.", e);
+            return;
+        }
+        log.info("Recovered {} in-flight items into {} chef queues in {} ms.",
+                recovered[0], chefQueues.size(), (System.nanoTime() - start) / 1_000_000);
     }
     
     public void initializeQueuesForTesting() {
         chefQueues.clear();
+        chefRoster.reload();
         initializeQueues();
     }
+
+    public StationLoadIndex getLoadIndex() {
+        return loadIndex;
+    }
     
     public ConcurrentHashMap<Long, ChefWorkQueue> getChefQueues() {
         return chefQueues;
     }
 
-    public void dispatch(Order order, OrderItem item) {
-        // Pass the messaging template to the strategy so it can notify the specific chef immediately
+    /**
+     * Arma el contexto de dispatch de una orden: el CPM se calcula aca, una sola vez para todos sus items.
+     * @param order The order about to be dispatched.
+     * @return The dispatch context shared by all of its items.
+     */
+    public DispatchContext prepare(Order order) {
+        OrderSchedule schedule;
+        try {
+            schedule = timeEstimationService.computeSchedule(order);
+        } catch (Exception e) {
+            log.warn("CPM Calculation failed for order {}. Proceeding with fallback.", order.getOrderId());
+            schedule = OrderSchedule.empty();
+        }
+        KitchenPlan plan = schedulerEnabled ? planKitchen(order, schedule) : KitchenPlan.empty();
+        return new DispatchContext(order, schedule, plan, chefRoster.getChefsById(), loadIndex, this::getQueueForChef);
+    }
+
+    // List scheduling contra la capacidad real de cada estacion (chefs + backlog de sus colas)
+    private KitchenPlan planKitchen(Order order, OrderSchedule schedule) {
+        try {
+            KitchenPlan plan = kitchenScheduler.plan(schedule, snapshotCapacities());
+            log.info("Kitchen plan for Order {}: ETA {} minutes (CPM without capacity: {}).",
+                    order.getOrderId(), plan.getEta(), schedule.getTotalTime());
+            return plan;
+        } catch (Exception e) {
+            log.warn("Kitchen scheduling failed for order {}. Routing without plan.", order.getOrderId(), e);
+            return KitchenPlan.empty();
+        }
+    }
+
+    /**
+     * Rutea todos los items de la orden en una pasada: un CPM, un plan, una foto del roster
+     * y un solo frame ItemStatusUpdateDTO[] a la cocina (despues del commit).
+     * @param order The persisted order.
+     * @return Cantidad de items asignados.
+     */
+    public int dispatchAll(Order order) {
+        DispatchContext context = prepare(order);
+        List<ItemStatusUpdateDTO> updates = new ArrayList<>(order.getItems().size());
+        for (OrderItem item : order.getItems()) {
+            Chef chef = dispatch(context, item);
+            if (chef != null) {
+                updates.add(toStatusUpdate(order, item, chef));
+            }
+        }
+        if (!updates.isEmpty()) {
+            sendAfterCommit("/topic/kitchen/orders", updates.toArray(new ItemStatusUpdateDTO[0]));
+        }
+        return updates.size();
+    }
+
+    /**
+     * Rutea un item con un contexto ya preparado. No notifica a la cocina (ver {@link #dispatchAll}).
+     * Solo se rutean items PENDING: uno cancelado mientras su orden esperaba en el buffer de dispatch queda como esta.
+     * @return El chef asignado, o null si no se pudo (o no se debia) rutear.
+     */
+    public Chef dispatch(DispatchContext context, OrderItem item) {
+        if (item.getStatus() != OrderStatus.PENDING) {
+            log.info("Item {} of Order {} is {}. Skipping dispatch.", item.getId(), context.getOrder().getOrderId(), item.getStatus());
+            return null;
+        }
         try {
-            routingStrategy.route(order, item, chefQueues, messagingTemplate);
+            return routingStrategy.route(context, item);
         } catch (Exception e) {
-            log.error("Failed to dispatch item {} for order {}", item.getId(), order.getOrderId(), e);
+            log.error("Failed to dispatch item {} for order {}", item.getId(), context.getOrder().getOrderId(), e);
+            return null;
+        }
+    }
+
+    public void dispatch(Order order, OrderItem item) {
+        Chef chef = dispatch(prepare(order), item);
+        if (chef != null) {
+            sendAfterCommit("/topic/kitchen/orders", new ItemStatusUpdateDTO[]{toStatusUpdate(order, item, chef)});
+        }
+    }
+
+    private ItemStatusUpdateDTO toStatusUpdate(Order order, OrderItem item, Chef chef) {
+        return new ItemStatusUpdateDTO(
+                item.getId(),
+                order.getOrderId(),
+                chef.getUserId(),
+                chef.getNombre(),
+                chef.getStation(),
+                OrderStatus.PREPARING,
+                item.getProduct().getName(),
+                item.getPreparationTime() * item.getQuantity()
+        );
+    }
+
+    private void sendAfterCommit(String destination, Object payload) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    messagingTemplate.convertAndSend(destination, payload);
+                    log.debug("WS Message sent to {} (After Commit)", destination);
+                }
+            });
+        } else {
+            messagingTemplate.convertAndSend(destination, payload);
+        }
+    }
+
+    /**
+     * Foto de la capacidad de cada estacion (chefs + backlog actual de sus colas, en orden EDF).
+     * Solo lee el roster en memoria y la foto que publica cada cola: no va a la base, no toma locks ni modifica las colas.
+     */
+    public Map<ChefStation, List<KitchenScheduler.ChefCapacity>> snapshotCapacities() {
+        return KitchenScheduler.capacities(chefRoster.getAll(), chefQueues);
+    }
+
+    /**
+     * @return La cola del chef en el orden en que deberia cocinarla (ultimo inicio admisible ascendente).
+     */
+    public List<ChefQueueItemDTO> getQueueView(Long chefId) {
+        ChefWorkQueue queue = chefQueues.get(chefId);
+        if (queue == null) {
+            return List.of();
+        }
+        double now = QueuedItem.nowMinutes();
+        List<QueuedItem> entries = queue.snapshot();
+        List<ChefQueueItemDTO> view = new ArrayList<>(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            QueuedItem entry = entries.get(i);
+            view.add(new ChefQueueItemDTO(i, entry.getItemId(), entry.getOrderId(), entry.getProductName(),
+                    entry.getMinutes(), Math.round(entry.getPriority() * 60_000), entry.getPriority() - now,
+                    entry.isStarted()));
+        }
+        return view;
+    }
+
+    /**
+     * Marca un item como tomado por su chef: queda al frente de su cola y ya no se reordena ni se cede a otro chef.
+     * Es solo estado en memoria: tras un reinicio las colas se rearman sin items empezados.
+     * @return false si el item no esta en la cola del chef.
+     */
+    public boolean markStarted(Long chefId, Long itemId) {
+        ChefWorkQueue queue = chefQueues.get(chefId);
+        return queue != null && queue.start(itemId);
+    }
+
+    /**
+     * Saca un item terminado o cancelado de la cola de su chef y descuenta su carga.
+     * @param chefId Chef asignado, o null si no se conoce (se busca en todas las colas).
+     * @return true si el item estaba encolado.
+     */
+    public boolean release(Long chefId, Long itemId) {
+        if (chefId != null) {
+            ChefWorkQueue queue = chefQueues.get(chefId);
+            if (queue != null && queue.remove(itemId) != null) {
+                return true;
+            }
+        }
+        for (ChefWorkQueue queue : chefQueues.values()) {
+            if (queue.remove(itemId) != null) {
+                return true;
+            }
         }
+        log.debug("Item {} was not queued for any chef.", itemId);
+        return false;
     }
 
+    /**
+     * Devuelve (o crea) la cola del chef. Toda cola creada aca avisa sus cambios de carga al indice de estaciones.
+     */
     public ChefWorkQueue getQueueForChef(Long chefId) {
-        return chefQueues.computeIfAbsent(chefId, k -> new ChefWorkQueue());
+        return chefQueues.computeIfAbsent(chefId, id -> new ChefWorkQueue(queue -> {
+            Chef chef = chefRoster.getChef(id);
+            if (chef != null) {
+                loadIndex.update(chef, queue::getTotalEstimatedTimeInMinutes);
+            }
+        }));
     }
 
     
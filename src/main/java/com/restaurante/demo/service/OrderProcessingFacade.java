@@ -28,6 +28,7 @@ public class OrderProcessingFacade {
         OrderBuilder builder = new OrderBuilder(); // Llama al OrderBuilder
         Order newOrder = builder.create().build(); 
 
+        int lineNumber = 0;
         for (Map.Entry<Long, Integer> entry : itemDetails.entrySet()) {
             Long productId = entry.getKey();
             Integer quantity = entry.getValue();
@@ -36,18 +37,21 @@ public class OrderProcessingFacade {
                     .orElseThrow(() -> new RuntimeException("Product not found with id: " + productId));
             
             // Decomponer items hoja en caso de items compuestos
-            addItemsToOrder(newOrder, product, quantity);
+            Long sourceCompositeId = (product instanceof CompositeProduct) ? product.getId() : null;
+            addItemsToOrder(newOrder, product, quantity, sourceCompositeId, lineNumber++);
         }
 
         return orderService.placeOrder(newOrder);
     }
 
-    private void addItemsToOrder(Order order, ProductComponent component, int quantity) {
+    // Tambien lo usa OrderQuoteService para expandir el carrito igual que una orden real
+    static void addItemsToOrder(Order order, ProductComponent component, int quantity, Long sourceCompositeId, int lineNumber) {
         if (component instanceof CompositeProduct) {
-            // Si es compuesto, recursivamente aniadir hijos
+            // Si es compuesto, recursivamente aniadir hijos. Todos quedan marcados con el combo de la linea
+            // (el de primer nivel); los combos anidados no se registran y no participan de la mineria.
             CompositeProduct composite = (CompositeProduct) component;
             for (ProductComponent child : composite.getChildren()) {
-                addItemsToOrder(order, child, quantity);
+                addItemsToOrder(order, child, quantity, sourceCompositeId, lineNumber);
             }
         } else {
             // Si es un producto simple, aniadir OrderItem
@@ -55,6 +59,8 @@ public class OrderProcessingFacade {
             item.setProduct(component);
             item.setQuantity(quantity);
             item.setOrder(order);
+            item.setLineNumber(lineNumber);
+            item.setSourceCompositeId(sourceCompositeId);
             // Tiempo de preparacion
             item.setPreparationTime(component.getPreparationTime());
             order.getItems().add(item);
@@ -0,0 +1,59 @@
+package com.restaurante.demo.service;
+
+import com.restaurante.demo.dto.OrderQuoteDTO;
+import com.restaurante.demo.model.CompositeProduct;
+import com.restaurante.demo.model.Order;
+import com.restaurante.demo.model.ProductComponent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+
+/**
+ * Cotizacion de ETA para un carrito sin crear la orden.
+ * Expande los combos como {@link OrderProcessingFacade}, corre el CPM y planifica con el {@link KitchenScheduler}
+ * sobre una foto de las colas de {@link OrderDispatcher}. Todo en memoria: el catalogo sale de
+ * {@link CatalogSnapshot}, no se escribe en la base y no se toman locks de las colas reales.
+ */
+@Service
+public class OrderQuoteService {
+
+    private final CatalogSnapshot catalogSnapshot;
+    private final TimeEstimationService timeEstimationService;
+    private final KitchenScheduler kitchenScheduler;
+    private final OrderDispatcher orderDispatcher;
+
+    @Autowired
+    public OrderQuoteService(CatalogSnapshot catalogSnapshot, TimeEstimationService timeEstimationService,
+                             KitchenScheduler kitchenScheduler, OrderDispatcher orderDispatcher) {
+        this.catalogSnapshot = catalogSnapshot;
+        this.timeEstimationService = timeEstimationService;
+        this.kitchenScheduler = kitchenScheduler;
+        this.orderDispatcher = orderDispatcher;
+    }
+
+    /**
+     * @param itemDetails Mismo payload que POST /api/client/orders (product id -> cantidad).
+     * @return ETA estimado y espera por estacion.
+     */
+    public OrderQuoteDTO quote(Map<Long, Integer> itemDetails) {
+        Order order = new OrderBuilder().create().build();
+        int lineNumber = 0;
+        for (Map.Entry<Long, Integer> entry : itemDetails.entrySet()) {
+            Integer quantity = entry.getValue();
+            if (quantity == null || quantity <= 0) {
+                throw new IllegalArgumentException("Invalid quantity for product " + entry.getKey() + ": " + quantity);
+            }
+            ProductComponent product = catalogSnapshot.get(entry.getKey());
+            if (product == null) {
+                throw new IllegalArgumentException("Product not found with id: " + entry.getKey());
+            }
+            Long sourceCompositeId = (product instanceof CompositeProduct) ? product.getId() : null;
+            OrderProcessingFacade.addItemsToOrder(order, product, quantity, sourceCompositeId, lineNumber++);
+        }
+
+        OrderSchedule schedule = timeEstimationService.computeSchedule(order);
+        KitchenPlan plan = kitchenScheduler.plan(schedule, orderDispatcher.snapshotCapacities());
+        return new OrderQuoteDTO(plan.getEta(), schedule.getTotalTime(), plan.getStationWait(), schedule.size());
+    }
+}
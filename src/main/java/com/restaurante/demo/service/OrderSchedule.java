@@ -0,0 +1,153 @@
+package com.restaurante.demo.service;
+
+import com.restaurante.demo.model.OrderItem;
+import lombok.Getter;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resultado del CPM de una orden: se calcula una sola vez por orden y lo leen todos los pasos del dispatch.
+ * Los valores estan indexados por la posicion del item en la orden.
+ */
+public class OrderSchedule {
+
+    private final List<OrderItem> items;
+    private final Map<OrderItem, Integer> positions = new IdentityHashMap<>();
+    private final double[] earlyStart;
+    private final double[] earlyFinish;
+    private final double[] lateStart;
+    private final double[] lateFinish;
+    private final double[] slack;
+    // Sucesores de cada item (CSR), para los que necesitan las aristas ademas de los tiempos
+    private final int[] successorStart;
+    private final int[] successors;
+    @Getter
+    private final double totalTime;
+
+    public OrderSchedule(List<OrderItem> items, double[] earlyStart, double[] earlyFinish,
+                         double[] lateStart, double[] lateFinish, double[] slack, double totalTime) {
+        this(items, earlyStart, earlyFinish, lateStart, lateFinish, slack, new int[items.size() + 1], new int[0], totalTime);
+    }
+
+    public OrderSchedule(List<OrderItem> items, double[] earlyStart, double[] earlyFinish,
+                         double[] lateStart, double[] lateFinish, double[] slack,
+                         int[] successorStart, int[] successors, double totalTime) {
+        this.items = items;
+        this.successorStart = successorStart;
+        this.successors = successors;
+        this.earlyStart = earlyStart;
+        this.earlyFinish = earlyFinish;
+        this.lateStart = lateStart;
+        this.lateFinish = lateFinish;
+        this.slack = slack;
+        this.totalTime = totalTime;
+        for (int i = 0; i < items.size(); i++) {
+            positions.put(items.get(i), i);
+        }
+    }
+
+    /**
+     * Arma el schedule a partir de los campos CPM que TimeEstimationService dejo en cada item.
+     */
+    public static OrderSchedule fromItems(List<OrderItem> items, double totalTime) {
+        int n = items.size();
+        double[] es = new double[n], ef = new double[n], ls = new double[n], lf = new double[n], slack = new double[n];
+        for (int i = 0; i < n; i++) {
+            OrderItem item = items.get(i);
+            es[i] = item.getEarlyStart();
+            ef[i] = item.getEarlyFinish();
+            ls[i] = item.getLateStart();
+            lf[i] = item.getLateFinish();
+            slack[i] = item.getSlack();
+        }
+        return new OrderSchedule(List.copyOf(items), es, ef, ls, lf, slack, totalTime);
+    }
+
+    /**
+     * Copia el resultado del motor (incluidas las aristas) para que sobreviva al siguiente uso del motor.
+     */
+    public static OrderSchedule fromEngine(List<OrderItem> items, CpmEngine engine) {
+        int n = items.size();
+        double[] es = new double[n], ef = new double[n], ls = new double[n], lf = new double[n], slack = new double[n];
+        int[] successorStart = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            es[i] = engine.getEarlyStart(i);
+            ef[i] = engine.getEarlyFinish(i);
+            ls[i] = engine.getLateStart(i);
+            lf[i] = engine.getLateFinish(i);
+            slack[i] = engine.getSlack(i);
+            successorStart[i + 1] = engine.getSuccessorEnd(i);
+        }
+        int[] successors = new int[successorStart[n]];
+        for (int e = 0; e < successors.length; e++) {
+            successors[e] = engine.getSuccessor(e);
+        }
+        return new OrderSchedule(List.copyOf(items), es, ef, ls, lf, slack, successorStart, successors, engine.getTotalTime());
+    }
+
+    public static OrderSchedule empty() {
+        return new OrderSchedule(List.of(), new double[0], new double[0], new double[0], new double[0], new double[0], 0.0);
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    public OrderItem getItem(int index) {
+        return items.get(index);
+    }
+
+    /**
+     * @return La posicion del item en el schedule, o -1 si no pertenece a la orden.
+     */
+    public int indexOf(OrderItem item) {
+        Integer i = positions.get(item);
+        return i == null ? -1 : i;
+    }
+
+    public int getSuccessorStart(int index) {
+        return successorStart[index];
+    }
+
+    public int getSuccessorEnd(int index) {
+        return successorStart[index + 1];
+    }
+
+    public int getSuccessor(int position) {
+        return successors[position];
+    }
+
+    public double getLateStart(int index) {
+        return lateStart[index];
+    }
+
+    public double getEarlyStart(OrderItem item) {
+        Integer i = positions.get(item);
+        return i == null ? 0.0 : earlyStart[i];
+    }
+
+    public double getEarlyFinish(OrderItem item) {
+        Integer i = positions.get(item);
+        return i == null ? 0.0 : earlyFinish[i];
+    }
+
+    public double getLateStart(OrderItem item) {
+        Integer i = positions.get(item);
+        return i == null ? 0.0 : lateStart[i];
+    }
+
+    public double getLateFinish(OrderItem item) {
+        Integer i = positions.get(item);
+        return i == null ? totalTime : lateFinish[i];
+    }
+
+    /**
+     * @return Holgura del item, 0 si el item no pertenece a la orden del schedule.
+     */
+    public double getSlack(OrderItem item) {
+        Integer i = positions.get(item);
+        return i == null ? 0.0 : slack[i];
+    }
+}
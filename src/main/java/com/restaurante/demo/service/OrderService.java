@@ -26,31 +26,50 @@ public class OrderService {
     private final OrderItemRepository orderItemRepository;
     private final SimpMessagingTemplate messagingTemplate;
     private final OrderDispatcher orderDispatcher; 
+    private final RecommendationService recommendationService;
+    private final DispatchPipeline dispatchPipeline;
 
     @Autowired
     public OrderService(OrderRepository orderRepository, 
                         OrderItemRepository orderItemRepository, 
                         SimpMessagingTemplate messagingTemplate,
-                        OrderDispatcher orderDispatcher) {
+                        OrderDispatcher orderDispatcher,
+                        RecommendationService recommendationService,
+                        DispatchPipeline dispatchPipeline) {
         this.orderRepository = orderRepository;
         this.orderItemRepository = orderItemRepository;
         this.messagingTemplate = messagingTemplate;
         this.orderDispatcher = orderDispatcher;
+        this.recommendationService = recommendationService;
+        this.dispatchPipeline = dispatchPipeline;
     }
 
 
 
+    /**
+     * Con kitchen.dispatch.async el checkout termina cuando la orden es durable (PENDING): el ruteo lo hace
+     * el DispatchPipeline despues del commit. Si su buffer esta lleno se lanza RejectedExecutionException
+     * antes de guardar nada.
+     */
     @Transactional
     public Order placeOrder(Order order) {
+        if (dispatchPipeline.isAsync()) {
+            dispatchPipeline.reserveSlot();
+        }
         Order savedOrder = orderRepository.save(order);
         log.info("Order placed: {}", savedOrder.getOrderId());
         
-        savedOrder.getItems().forEach(item -> {
-            orderDispatcher.dispatch(savedOrder, item);
-        });
-        
-        startPreparingOrder(savedOrder.getOrderId());
+        if (dispatchPipeline.isAsync()) {
+            dispatchPipeline.submitAfterCommit(savedOrder.getOrderId());
+        } else {
+            // Una sola pasada: CPM, plan y roster una vez por orden, y un solo frame a la cocina
+            orderDispatcher.dispatchAll(savedOrder);
+            
+            startPreparingOrder(savedOrder.getOrderId());
+        }
 
+        // El miner de recomendaciones solo ve ordenes confirmadas
+        runAfterCommit(() -> recommendationService.recordOrder(savedOrder));
         
         return savedOrder;
     }
@@ -91,6 +110,9 @@ public class OrderService {
                 log.warn("Item {} already completed. Skipping.", orderItemId);
                 return item;
             }
+            if (item.getStatus() == OrderStatus.REVOKED) {
+                throw new IllegalStateException("Item " + orderItemId + " was revoked.");
+            }
 
             item.setStatus(OrderStatus.COMPLETED);
             orderItemRepository.save(item);
@@ -109,21 +131,10 @@ public class OrderService {
             );
             
             sendAfterCommit(messagingTemplate, "/topic/kitchen/orders", update);
+            // La carga del chef baja recien cuando el cambio es durable
+            releaseAfterCommit(item);
 
-            Order parentOrder = orderRepository.findById(item.getOrder().getOrderId())
-                    .orElseThrow(() -> new RuntimeException("Parent order not found during completion check."));
-
-            boolean allOtherItemsComplete = parentOrder.getItems().stream()
-                .filter(orderItem -> !orderItem.getId().equals(orderItemId)) 
-                .allMatch(orderItem -> orderItem.getStatus() == OrderStatus.COMPLETED);
-
-            if (allOtherItemsComplete && parentOrder.getStatus() == OrderStatus.PREPARING) {
-                log.info("All items for Order {} complete. Finishing order.", parentOrder.getOrderId());
-                parentOrder.handleRequest(); 
-                orderRepository.save(parentOrder);
-                
-                sendAfterCommit(messagingTemplate, "/topic/kitchen/order-complete", parentOrder.getOrderId());
-            }
+            finishOrderIfDone(item);
 
             return item;
         } catch (ObjectOptimisticLockingFailureException e) {
@@ -132,6 +143,42 @@ public class OrderService {
         }
     }
     
+    /**
+     * Cancela un item pendiente: queda REVOKED, sale de la cola de su chef y la cocina recibe el cambio.
+     */
+    @Transactional
+    public OrderItem cancelOrderItem(Long orderItemId) {
+        OrderItem item = orderItemRepository.findById(orderItemId)
+                .orElseThrow(() -> new RuntimeException("OrderItem not found with id: " + orderItemId));
+
+        if (item.getStatus() == OrderStatus.COMPLETED || item.getStatus() == OrderStatus.REVOKED) {
+            throw new IllegalStateException("Item " + orderItemId + " is already " + item.getStatus() + ".");
+        }
+
+        item.setStatus(OrderStatus.REVOKED);
+        orderItemRepository.save(item);
+
+        log.info("Item {} ({}) revoked.", item.getId(), item.getProduct().getName());
+
+        ItemStatusUpdateDTO update = new ItemStatusUpdateDTO(
+            item.getId(),
+            item.getOrder().getOrderId(),
+            item.getAssignedChef() != null ? item.getAssignedChef().getUserId() : null,
+            item.getAssignedChef() != null ? item.getAssignedChef().getNombre() : "Unknown",
+            null,
+            OrderStatus.REVOKED,
+            item.getProduct().getName(),
+            0.0
+        );
+
+        sendAfterCommit(messagingTemplate, "/topic/kitchen/orders", update);
+        releaseAfterCommit(item);
+
+        finishOrderIfDone(item);
+
+        return item;
+    }
+
     // Fallback for simple calls without ID check (if needed internally)
     @Transactional
     public OrderItem completeOrderItem(Long orderItemId) {
@@ -144,17 +191,48 @@ public class OrderService {
         return orderRepository.findAllActiveOrdersForKitchen();
     }
     
+    // Si ya no queda ningun item por cocinar (completado o cancelado), la orden termina
+    private void finishOrderIfDone(OrderItem item) {
+        Order parentOrder = orderRepository.findById(item.getOrder().getOrderId())
+                .orElseThrow(() -> new RuntimeException("Parent order not found during completion check."));
+
+        boolean allOtherItemsDone = parentOrder.getItems().stream()
+            .filter(orderItem -> !orderItem.getId().equals(item.getId()))
+            .allMatch(orderItem -> orderItem.getStatus() == OrderStatus.COMPLETED
+                    || orderItem.getStatus() == OrderStatus.REVOKED);
+
+        if (allOtherItemsDone && parentOrder.getStatus() == OrderStatus.PREPARING) {
+            log.info("All items for Order {} complete. Finishing order.", parentOrder.getOrderId());
+            parentOrder.handleRequest();
+            orderRepository.save(parentOrder);
+
+            sendAfterCommit(messagingTemplate, "/topic/kitchen/order-complete", parentOrder.getOrderId());
+        }
+    }
+
+    private void releaseAfterCommit(OrderItem item) {
+        Long chefId = item.getAssignedChef() != null ? item.getAssignedChef().getUserId() : null;
+        Long itemId = item.getId();
+        runAfterCommit(() -> orderDispatcher.release(chefId, itemId));
+    }
+
     private void sendAfterCommit(SimpMessagingTemplate template, String destination, Object payload) {
+        runAfterCommit(() -> {
+            template.convertAndSend(destination, payload);
+            log.debug("WS Sent to {} (After Commit)", destination);
+        });
+    }
+
+    private void runAfterCommit(Runnable action) {
         if (TransactionSynchronizationManager.isActualTransactionActive()) {
             TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
                 @Override
                 public void afterCommit() {
-                    template.convertAndSend(destination, payload);
-                    log.debug("WS Sent to {} (After Commit)", destination);
+                    action.run();
                 }
             });
         } else {
-            template.convertAndSend(destination, payload);
+            action.run();
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,58 @@
+package com.restaurante.demo.service;
+
+import java.util.*;
+
+/**
+ * Ranking de los combos mas pedidos, mantenido de forma incremental con cada orden.
+ * Es la respuesta de respaldo cuando la mineria no entra en el presupuesto de latencia.
+ */
+public class PopularComboTracker {
+
+    private final int topN;
+    private final Map<Long, Long> counts = new HashMap<>();
+    private volatile List<Long> topIds = List.of();
+
+    public PopularComboTracker(int topN) {
+        this.topN = topN;
+    }
+
+    /**
+     * Reinicia el ranking con el historial completo.
+     * @param transactions Combos de cada orden.
+     */
+    public synchronized void reset(Collection<Set<Long>> transactions) {
+        counts.clear();
+        transactions.forEach(transaction -> transaction.forEach(id -> counts.merge(id, 1L, Long::sum)));
+        refreshTop();
+    }
+
+    public synchronized void record(Set<Long> compositeIds) {
+        compositeIds.forEach(id -> counts.merge(id, 1L, Long::sum));
+        refreshTop();
+    }
+
+    /**
+     * @return Ids de los combos mas pedidos, del mas al menos pedido.
+     */
+    public List<Long> getTopIds() {
+        return topIds;
+    }
+
+    // Min-heap de tamanio topN: O(C log N) por actualizacion
+    private void refreshTop() {
+        Comparator<Map.Entry<Long, Long>> byCount = Map.Entry.<Long, Long>comparingByValue()
+                .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder()));
+        PriorityQueue<Map.Entry<Long, Long>> heap = new PriorityQueue<>(byCount);
+        for (Map.Entry<Long, Long> entry : counts.entrySet()) {
+            heap.offer(entry);
+            if (heap.size() > topN) {
+                heap.poll();
+            }
+        }
+        Long[] ranked = new Long[heap.size()];
+        for (int i = ranked.length - 1; i >= 0; i--) {
+            ranked[i] = heap.poll().getKey();
+        }
+        topIds = List.of(ranked);
+    }
+}
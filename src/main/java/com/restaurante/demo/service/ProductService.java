@@ -7,6 +7,8 @@ import com.restaurante.demo.repository.ProductRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -15,10 +17,12 @@ import java.util.stream.Collectors;
 public class ProductService {
 
     private final ProductRepository productRepository;
+    private final List<CatalogListener> catalogListeners;
 
     @Autowired
-    public ProductService(ProductRepository productRepository) {
+    public ProductService(ProductRepository productRepository, List<CatalogListener> catalogListeners) {
         this.productRepository = productRepository;
+        this.catalogListeners = catalogListeners;
     }
 
     @Transactional
@@ -36,7 +40,9 @@ public class ProductService {
                 composite.setChildren(managedChildren);
             }
         }
-        return productRepository.save(product);
+        ProductComponent saved = productRepository.save(product);
+        notifyCatalogChanged();
+        return saved;
     }
 
     @Transactional
@@ -52,6 +58,10 @@ public class ProductService {
             existingSimple.setPreparationTime(detailsSimple.getPreparationTime());
             existingSimple.setRequiredStation(detailsSimple.getRequiredStation());
             existingSimple.setPrerequisiteProductId(detailsSimple.getPrerequisiteProductId());
+            existingSimple.getPrerequisiteProductIds().clear();
+            if (detailsSimple.getPrerequisiteProductIds() != null) {
+                existingSimple.getPrerequisiteProductIds().addAll(detailsSimple.getPrerequisiteProductIds());
+            }
         } else if (existingProduct instanceof CompositeProduct && productDetails instanceof CompositeProduct) {
              CompositeProduct existingComposite = (CompositeProduct) existingProduct;
              CompositeProduct detailsComposite = (CompositeProduct) productDetails;
@@ -61,7 +71,9 @@ public class ProductService {
                  existingComposite.setChildren(children);
              }
         }
-        return productRepository.save(existingProduct);
+        ProductComponent saved = productRepository.save(existingProduct);
+        notifyCatalogChanged();
+        return saved;
     }
     
     // --- GETTER METHODS ---
@@ -84,5 +96,20 @@ public class ProductService {
 
     public void deleteProduct(Long id) {
         productRepository.deleteById(id);
+        notifyCatalogChanged();
+    }
+
+    // Los listeners (cache de recomendaciones, etc.) solo se enteran de cambios confirmados
+    private void notifyCatalogChanged() {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    catalogListeners.forEach(CatalogListener::onCatalogChanged);
+                }
+            });
+        } else {
+            catalogListeners.forEach(CatalogListener::onCatalogChanged);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,68 @@
+package com.restaurante.demo.service;
+
+import com.restaurante.demo.model.OrderItem;
+import lombok.Getter;
+
+/**
+ * Entrada de una {@link ChefWorkQueue}: solo los datos que la cola necesita (no la entidad),
+ * asi se puede reconstruir desde una proyeccion y mover entre colas sin tocar JPA.
+ */
+@Getter
+public class QueuedItem {
+    private final Long itemId;
+    private final Long orderId;
+    private final String productName;
+    // Carga que aporta a la cola: preparationTime * quantity
+    private final double minutes;
+    // Ultimo inicio admisible en minutos absolutos (epoch): menor = antes.
+    // Por defecto el momento en que se encolo (items sin schedule quedan en orden de llegada)
+    private double priority;
+    // El chef ya lo tomo: no se cede a otro chef ni cambia de prioridad
+    private boolean started;
+    long sequence;
+    int heapIndex = -1;
+
+    public QueuedItem(Long itemId, Long orderId, String productName, double minutes) {
+        this(itemId, orderId, productName, minutes, Double.NaN);
+    }
+
+    /**
+     * @param priority Ultimo inicio admisible en minutos epoch, o NaN para usar el momento en que se encola.
+     */
+    public QueuedItem(Long itemId, Long orderId, String productName, double minutes, double priority) {
+        this.itemId = itemId;
+        this.orderId = orderId;
+        this.productName = productName;
+        this.minutes = minutes;
+        this.priority = priority;
+    }
+
+    public static QueuedItem of(OrderItem item) {
+        return of(item, Double.NaN);
+    }
+
+    public static QueuedItem of(OrderItem item, double latestStart) {
+        return new QueuedItem(item.getId(), item.getOrderId(),
+                item.getProduct() != null ? item.getProduct().getName() : null,
+                item.getPreparationTime() * item.getQuantity(), latestStart);
+    }
+
+    /**
+     * @return Ahora, en minutos epoch (la escala de las prioridades).
+     */
+    public static double nowMinutes() {
+        return System.currentTimeMillis() / 60_000.0;
+    }
+
+    void setPriority(double priority) {
+        this.priority = priority;
+    }
+
+    void markStarted() {
+        this.started = true;
+    }
+
+    long loadHundredths() {
+        return Math.round(minutes * 100);
+    }
+}
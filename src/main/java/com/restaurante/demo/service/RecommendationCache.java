@@ -0,0 +1,108 @@
+package com.restaurante.demo.service;
+
+import com.restaurante.demo.dto.CacheStatsDTO;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache LRU acotado con TTL por entrada.
+ * Cada entrada vence por su cuenta (una escritura no renueva el TTL de las demas)
+ * y al superar maxSize se desaloja la entrada usada hace mas tiempo.
+ * Una entrada vencida se conserva un TTL mas para poder servirla (getStale) mientras se recalcula.
+ */
+public class RecommendationCache<K, V> {
+
+    private final int maxSize;
+    private final long ttlMillis;
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    public RecommendationCache(int maxSize, long ttlMillis) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        // accessOrder = true: el orden de iteracion es del menos al mas recientemente usado
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > RecommendationCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @return The cached value, or null if absent or expired.
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null || entry.expiresAt <= System.currentTimeMillis()) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.value;
+    }
+
+    /**
+     * @return The cached value even if it already expired, or null if absent. No cuenta en las estadisticas.
+     */
+    public synchronized V getStale(K key) {
+        Entry<V> entry = entries.get(key);
+        return entry == null ? null : entry.value;
+    }
+
+    public synchronized void put(K key, V value) {
+        entries.put(key, new Entry<>(value, System.currentTimeMillis() + ttlMillis));
+    }
+
+    public synchronized void invalidateAll() {
+        entries.clear();
+    }
+
+    /**
+     * Marca todas las entradas como vencidas sin borrarlas (siguen disponibles via getStale).
+     */
+    public synchronized void expireAll() {
+        long now = System.currentTimeMillis();
+        entries.replaceAll((key, entry) -> new Entry<>(entry.value, Math.min(entry.expiresAt, now)));
+    }
+
+    /**
+     * Elimina las entradas que vencieron hace mas de un TTL y nadie volvio a pedir.
+     */
+    public synchronized void purgeExpired() {
+        long limit = System.currentTimeMillis() - ttlMillis;
+        Iterator<Entry<V>> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().expiresAt <= limit) {
+                iterator.remove();
+                expirations.incrementAndGet();
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public CacheStatsDTO getStats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long requests = hitCount + missCount;
+        return new CacheStatsDTO(size(), maxSize, hitCount, missCount, evictions.get(), expirations.get(),
+                requests == 0 ? 0.0 : (double) hitCount / requests);
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+}
@@ -0,0 +1,14 @@
+package com.restaurante.demo.service;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Clave inmutable y canonica del cache de recomendaciones: items ordenados + umbrales y limite del request.
+ */
+public record RecommendationKey(List<Long> itemIds, double minSupport, double minConfidence, int limit) {
+
+    public static RecommendationKey of(Set<Long> currentItemIds, double minSupport, double minConfidence, int limit) {
+        return new RecommendationKey(currentItemIds.stream().sorted().toList(), minSupport, minConfidence, limit);
+    }
+}
@@ -1,229 +1,469 @@
 package com.restaurante.demo.service;
 
+import com.restaurante.demo.dto.CacheStatsDTO;
 import com.restaurante.demo.model.CompositeProduct;
 import com.restaurante.demo.model.Order;
+import com.restaurante.demo.model.OrderItem;
 import com.restaurante.demo.model.ProductComponent;
-import com.restaurante.demo.repository.OrderRepository;
+import com.restaurante.demo.repository.OrderItemRepository;
+import com.restaurante.demo.repository.OrderLineView;
 import com.restaurante.demo.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @Service
 @Slf4j // Report Section 6.3
-public class RecommendationService {
+public class RecommendationService implements CatalogListener {
 
-    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
     private final ProductRepository productRepository;
+    private final CatalogSnapshot catalogSnapshot;
+    private final TransactionTemplate readOnlyTransaction;
     
-    // Simple Cache
-    private final Map<Set<Long>, List<ProductComponent>> recommendationCache = new ConcurrentHashMap<>();
-    private long lastCacheUpdate = 0;
-    private static final long CACHE_TTL = 60000; // 1 minute cache
+    // Cache LRU acotado, TTL por entrada, clave canonica (items ordenados + umbrales)
+    private final RecommendationCache<RecommendationKey, List<ProductComponent>> recommendationCache;
+    // Calculos en curso por clave (single-flight) y refresh en background de entradas vencidas
+    private final ConcurrentHashMap<RecommendationKey, CompletableFuture<List<ProductComponent>>> inFlight = new ConcurrentHashMap<>();
+    private final ExecutorService refreshExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    // Presupuesto de latencia: si la respuesta no llega a tiempo se devuelven los combos populares
+    private final long latencyBudgetMillis;
+    private final PopularComboTracker popularCombos;
+
+    // Miner construido una sola vez y alimentado incrementalmente con las ordenes nuevas.
+    // Solo lo toca el thread del indice: una reconstruccion arma un miner nuevo y lo publica al terminar.
+    private final ForkJoinPool miningPool;
+    private final Supplier<FrequentItemsetMiner> minerFactory;
+    private final AtomicReference<FrequentItemsetMiner> miner = new AtomicReference<>();
+    private volatile boolean minerBuilt = false;
+    // Ordenes confirmadas que todavia no se aplicaron al miner (el checkout nunca espera al miner)
+    private final ConcurrentLinkedQueue<RecordedOrder> recordedOrders = new ConcurrentLinkedQueue<>();
+
+    // Indice de reglas precalculado: se reconstruye en background y se reemplaza atomicamente
+    private final AtomicReference<AssociationRuleIndex> ruleIndex = new AtomicReference<>(AssociationRuleIndex.EMPTY);
+    private final ExecutorService indexBuilder = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "recommendation-index-builder");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicReference<CompletableFuture<AssociationRuleIndex>> inFlightRebuild = new AtomicReference<>();
+    private volatile boolean indexBuilt = false;
+    private final AtomicInteger ordersSinceRebuild = new AtomicInteger(0);
+    private final double indexMinSupport;
+    private final double indexMinConfidence;
+    private final int rebuildAfterOrders;
 
     @Autowired
-    public RecommendationService(OrderRepository orderRepository, ProductRepository productRepository) {
-        this.orderRepository = orderRepository;
+    public RecommendationService(OrderItemRepository orderItemRepository, ProductRepository productRepository,
+                                 CatalogSnapshot catalogSnapshot,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${recommendation.miner:fpgrowth}") String minerType,
+                                 @Value("${recommendation.index.min-support:0.01}") double indexMinSupport,
+                                 @Value("${recommendation.index.min-confidence:0.1}") double indexMinConfidence,
+                                 @Value("${recommendation.index.rebuild-after-orders:50}") int rebuildAfterOrders,
+                                 @Value("${recommendation.mining.parallelism:0}") int miningParallelism,
+                                 @Value("${recommendation.cache.max-size:1000}") int cacheMaxSize,
+                                 @Value("${recommendation.cache.ttl-ms:60000}") long cacheTtlMillis,
+                                 @Value("${recommendation.latency-budget-ms:50}") long latencyBudgetMillis,
+                                 @Value("${recommendation.popular.top-n:5}") int popularTopN) {
+        this.orderItemRepository = orderItemRepository;
         this.productRepository = productRepository;
+        this.catalogSnapshot = catalogSnapshot;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        // 0 = un worker por core, 1 = mineria secuencial
+        int parallelism = miningParallelism > 0 ? miningParallelism : Runtime.getRuntime().availableProcessors();
+        this.miningPool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+        this.minerFactory = () -> createMiner(minerType, miningPool);
+        this.indexMinSupport = indexMinSupport;
+        this.indexMinConfidence = indexMinConfidence;
+        this.rebuildAfterOrders = rebuildAfterOrders;
+        this.recommendationCache = new RecommendationCache<>(cacheMaxSize, cacheTtlMillis);
+        this.latencyBudgetMillis = latencyBudgetMillis;
+        this.popularCombos = new PopularComboTracker(popularTopN);
+    }
+
+    private static FrequentItemsetMiner createMiner(String minerType, ForkJoinPool pool) {
+        if ("apriori".equalsIgnoreCase(minerType)) {
+            return new AprioriMiner(pool);
+        }
+        return new FPGrowthMiner(pool);
     }
 
-    public List<ProductComponent> generateRecommendations(Set<Long> currentItemIds, double minSupport, double minConfidence) {
-        if (currentItemIds.isEmpty()) return Collections.emptyList();
+    /**
+     * Solo consulta el indice precalculado; la mineria nunca corre en el thread del request.
+     * Umbrales mas estrictos que los del indice se aplican filtrando las reglas; los mas laxos quedan acotados al indice.
+     * Los misses concurrentes de la misma clave comparten un solo calculo, y una entrada vencida
+     * se sigue sirviendo mientras se recalcula en background.
+     * Si el calculo no termina dentro de recommendation.latency-budget-ms se devuelven los combos populares;
+     * el resultado completo queda en el cache para el proximo request.
+     * @param limit Maximo de productos a devolver, ordenados por confianza y lift.
+     */
+    public List<ProductComponent> generateRecommendations(Set<Long> currentItemIds, double minSupport, double minConfidence, int limit) {
+        if (currentItemIds.isEmpty() || limit <= 0) return Collections.emptyList();
         
         // Check cache
-        if (System.currentTimeMillis() - lastCacheUpdate < CACHE_TTL && recommendationCache.containsKey(currentItemIds)) {
-            log.debug("Recommendation cache hit for items: {}", currentItemIds);
-            return recommendationCache.get(currentItemIds);
-        }
-
-        // 1. Conseguir ordenes 
-        List<Order> historicalOrders = orderRepository.findAll();
-        if (historicalOrders.isEmpty()) {
-            return Collections.emptyList();
-        }
-
-        // 2. Conseguir todos los productos composite que son visibles para el cliente
-        Map<Set<Long>, Long> componentToCompositeMap = new HashMap<>();
-        productRepository.findAll().stream()
-                .filter(p -> p instanceof CompositeProduct && p.isVisibleToClient())
-                .forEach(p -> {
-                    CompositeProduct composite = (CompositeProduct) p;
-                    Set<Long> childIds = composite.getChildren().stream()
-                            .map(ProductComponent::getId)
-                            .collect(Collectors.toSet());
-                    componentToCompositeMap.put(childIds, composite.getId());
-                });
-
-        // 3. Construir la database basada en los productos comprados
-        List<Set<Long>> transactions = new ArrayList<>();
-        for (Order order : historicalOrders) {
-            Set<Long> itemsInThisOrder = order.getItems().stream()
-                    .map(item -> item.getProduct().getId())
-                    .collect(Collectors.toSet());
-
-            Set<Long> compositesInThisOrder = new HashSet<>();
-            for (Map.Entry<Set<Long>, Long> entry : componentToCompositeMap.entrySet()) {
-                if (itemsInThisOrder.containsAll(entry.getKey())) {
-                    compositesInThisOrder.add(entry.getValue());
-                }
-            }
-            if (!compositesInThisOrder.isEmpty()) {
-                transactions.add(compositesInThisOrder);
-            }
+        RecommendationKey key = RecommendationKey.of(currentItemIds, minSupport, minConfidence, limit);
+        List<ProductComponent> cached = recommendationCache.get(key);
+        if (cached != null) {
+            log.debug("Recommendation cache hit for items: {}", key.itemIds());
+            return cached;
         }
-        
-        if (transactions.isEmpty()) {
-            return Collections.emptyList();
+
+        // Stale-while-revalidate: devolver lo anterior y recalcular una sola vez en background
+        List<ProductComponent> stale = recommendationCache.getStale(key);
+        if (stale != null) {
+            computeOnce(key);
+            return stale;
         }
 
-        log.debug("Running Apriori Algorithm on {} transactions...", transactions.size());
+        CompletableFuture<List<ProductComponent>> pending = computeOnce(key);
+        try {
+            if (latencyBudgetMillis <= 0) {
+                return pending.get();
+            }
+            return pending.get(latencyBudgetMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.debug("Recommendation for {} exceeded {} ms budget. Serving popular combos.", key.itemIds(), latencyBudgetMillis);
+            return popularFallback(currentItemIds, limit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return popularFallback(currentItemIds, limit);
+        } catch (ExecutionException e) {
+            log.error("Recommendation computation failed for {}", key.itemIds(), e.getCause());
+            return popularFallback(currentItemIds, limit);
+        }
+    }
 
-        // --- APRIORI ALGORITMO ---
-        Map<Set<Long>, Double> frequentItemsets = findFrequentItemsets(transactions, minSupport);
-        List<AssociationRule> rules = generateAssociationRules(frequentItemsets, transactions.size(), minConfidence);
+    private List<ProductComponent> popularFallback(Set<Long> currentItemIds, int limit) {
+        return popularCombos.getTopIds().stream()
+                .filter(id -> !currentItemIds.contains(id))
+                .map(catalogSnapshot::get)
+                .filter(Objects::nonNull)
+                .limit(limit)
+                .toList();
+    }
 
-        // --- Filtro de recomendaciones ---
-        Set<Long> recommendedProductIds = new HashSet<>();
-        for (AssociationRule rule : rules) {
-            if (currentItemIds.containsAll(rule.antecedent)) {
-                rule.consequent.forEach(recommendedProductIds::add);
-            }
+    /**
+     * Single-flight por clave: el primer caller registra el calculo (en un virtual thread)
+     * y los demas esperan el mismo future.
+     */
+    private CompletableFuture<List<ProductComponent>> computeOnce(RecommendationKey key) {
+        CompletableFuture<List<ProductComponent>> created = new CompletableFuture<>();
+        CompletableFuture<List<ProductComponent>> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            return existing;
         }
-        
-        recommendedProductIds.removeAll(currentItemIds);
+        Runnable task = () -> {
+            try {
+                created.complete(computeRecommendations(key));
+            } catch (Throwable t) {
+                created.completeExceptionally(t);
+            } finally {
+                inFlight.remove(key, created);
+            }
+        };
+        refreshExecutor.execute(task);
+        return created;
+    }
 
-        if (recommendedProductIds.isEmpty()) {
-            return Collections.emptyList();
+    private List<ProductComponent> computeRecommendations(RecommendationKey key) {
+        AssociationRuleIndex index = awaitIndex();
+        Set<Long> currentItemIds = new HashSet<>(key.itemIds());
+
+        // --- Filtro de recomendaciones: mejor regla por producto recomendado ---
+        Map<Long, AssociationRule> bestRuleByProduct = new HashMap<>();
+        for (AssociationRule rule : index.findMatchingRules(currentItemIds)) {
+            if (rule.getSupport() >= key.minSupport() && rule.getConfidence() >= key.minConfidence()) {
+                for (Long productId : rule.getConsequent()) {
+                    if (!currentItemIds.contains(productId)) {
+                        bestRuleByProduct.merge(productId, rule,
+                                (a, b) -> AssociationRule.BY_CONFIDENCE_THEN_LIFT.compare(a, b) >= 0 ? a : b);
+                    }
+                }
+            }
         }
 
-        List<ProductComponent> results = productRepository.findAllById(recommendedProductIds);
+        // --- Top-K con un min-heap acotado a limit ---
+        Comparator<Map.Entry<Long, AssociationRule>> ranking = Map.Entry.<Long, AssociationRule>comparingByValue(AssociationRule.BY_CONFIDENCE_THEN_LIFT)
+                .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder()));
+        PriorityQueue<Map.Entry<Long, AssociationRule>> heap = new PriorityQueue<>(ranking);
+        for (Map.Entry<Long, AssociationRule> candidate : bestRuleByProduct.entrySet()) {
+            heap.offer(candidate);
+            if (heap.size() > key.limit()) {
+                heap.poll();
+            }
+        }
+        ProductComponent[] ranked = new ProductComponent[heap.size()];
+        for (int i = ranked.length - 1; i >= 0; i--) {
+            ranked[i] = catalogSnapshot.get(heap.poll().getKey()); // null si el producto se borro del catalogo
+        }
+        List<ProductComponent> results = Arrays.stream(ranked).filter(Objects::nonNull).toList();
         
         // Update Cache
-        recommendationCache.put(currentItemIds, results);
-        lastCacheUpdate = System.currentTimeMillis();
+        recommendationCache.put(key, results);
         
-        log.info("Generated {} recommendations for input {}", results.size(), currentItemIds);
+        log.info("Generated {} recommendations for input {}", results.size(), key.itemIds());
         return results;
     }
 
-    private Map<Set<Long>, Double> findFrequentItemsets(List<Set<Long>> transactions, double minSupport) {
-        int numTransactions = transactions.size();
-        Map<Set<Long>, Double> allFrequentItemsets = new HashMap<>();
+    /**
+     * Devuelve el indice actual. Solo si todavia no se construyo ninguno (arranque en frio)
+     * se espera la reconstruccion en curso, compartida por todos los requests.
+     */
+    private AssociationRuleIndex awaitIndex() {
+        if (indexBuilt) {
+            return ruleIndex.get();
+        }
+        return requestIndexRebuild().join();
+    }
 
-        Map<Set<Long>, Integer> C1 = new HashMap<>();
-        for (Set<Long> transaction : transactions) {
-            for (Long item : transaction) {
-                Set<Long> itemset = Collections.singleton(item);
-                C1.put(itemset, C1.getOrDefault(itemset, 0) + 1);
-            }
+    /**
+     * Deja una orden recien confirmada para el miner, sin reconstruirlo ni esperarlo: el thread del indice la aplica
+     * en su proxima pasada (o la reaplica sobre el miner nuevo si hay una reconstruccion en curso).
+     * Cada recommendation.index.rebuild-after-orders ordenes se pide una reconstruccion del indice.
+     * @param order The placed order.
+     */
+    public void recordOrder(Order order) {
+        Set<Long> transaction = toTransaction(order);
+        if (transaction.isEmpty()) return;
+        recordedOrders.add(new RecordedOrder(order.getOrderId(), transaction));
+        if (ordersSinceRebuild.incrementAndGet() >= rebuildAfterOrders) {
+            requestIndexRebuild();
         }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildInitialIndex() {
+        requestIndexRebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${recommendation.index.refresh-ms:300000}",
+               initialDelayString = "${recommendation.index.refresh-ms:300000}")
+    public void scheduledIndexRebuild() {
+        requestIndexRebuild();
+    }
 
-        Map<Set<Long>, Double> L1 = new HashMap<>();
-        for (Map.Entry<Set<Long>, Integer> entry : C1.entrySet()) {
-            double support = (double) entry.getValue() / numTransactions;
-            if (support >= minSupport) {
-                L1.put(entry.getKey(), support);
+    /**
+     * Encola una reconstruccion del indice. Si ya hay una en curso se devuelve esa misma (una por generacion).
+     * @return Future con el indice resultante.
+     */
+    public CompletableFuture<AssociationRuleIndex> requestIndexRebuild() {
+        while (true) {
+            CompletableFuture<AssociationRuleIndex> current = inFlightRebuild.get();
+            if (current != null) {
+                return current;
             }
-        }
-        allFrequentItemsets.putAll(L1);
-
-        Map<Set<Long>, Double> Lk_1 = L1;
-        for (int k = 2; !Lk_1.isEmpty(); k++) {
-            Map<Set<Long>, Double> Lk = new HashMap<>();
-            Set<Set<Long>> Ck = generateCandidates(Lk_1.keySet(), k);
-            Map<Set<Long>, Integer> candidateCounts = new HashMap<>();
-            for (Set<Long> transaction : transactions) {
-                for (Set<Long> candidate : Ck) {
-                    if (transaction.containsAll(candidate)) {
-                        candidateCounts.put(candidate, candidateCounts.getOrDefault(candidate, 0) + 1);
-                    }
-                }
+            CompletableFuture<AssociationRuleIndex> created = new CompletableFuture<>();
+            if (inFlightRebuild.compareAndSet(null, created)) {
+                indexBuilder.execute(() -> rebuildIndex(created));
+                return created;
             }
+        }
+    }
 
-            for (Map.Entry<Set<Long>, Integer> entry : candidateCounts.entrySet()) {
-                double support = (double) entry.getValue() / numTransactions;
-                if (support >= minSupport) {
-                    Lk.put(entry.getKey(), support);
-                }
-            }
-            
-            allFrequentItemsets.putAll(Lk);
-            Lk_1 = Lk;
+    public AssociationRuleIndex getRuleIndex() {
+        return ruleIndex.get();
+    }
+
+    /**
+     * Un cambio en el catalogo invalida el cache y obliga a reconstruir el miner desde la base,
+     * porque cambian los combos y su visibilidad.
+     */
+    @Override
+    public void onCatalogChanged() {
+        // El snapshot tiene que estar invalidado antes de reconstruir, sin depender del orden de los listeners
+        catalogSnapshot.onCatalogChanged();
+        recommendationCache.invalidateAll();
+        minerBuilt = false;
+        requestIndexRebuild();
+        log.info("Catalog changed: recommendation cache invalidated and index rebuild requested.");
+    }
+
+    @Scheduled(fixedDelayString = "${recommendation.cache.ttl-ms:60000}")
+    public void purgeExpiredCacheEntries() {
+        recommendationCache.purgeExpired();
+    }
+
+    public CacheStatsDTO getCacheStats() {
+        return recommendationCache.getStats();
+    }
+
+    private void rebuildIndex(CompletableFuture<AssociationRuleIndex> generation) {
+        ordersSinceRebuild.set(0);
+        try {
+            long start = System.currentTimeMillis();
+            FrequentItemsetMiner current = ensureMinerBuilt();
+            List<AssociationRule> rules = current.generateRules(indexMinSupport, indexMinConfidence);
+            AssociationRuleIndex index = new AssociationRuleIndex(rules, current.getTransactionCount(), indexMinSupport, indexMinConfidence);
+            ruleIndex.set(index);
+            indexBuilt = true;
+            // Las recomendaciones cacheadas salieron del indice anterior: quedan vencidas pero se pueden servir mientras se recalculan
+            recommendationCache.expireAll();
+            log.info("Recommendation index rebuilt: {} rules from {} transactions in {} ms",
+                    rules.size(), current.getTransactionCount(), System.currentTimeMillis() - start);
+            inFlightRebuild.compareAndSet(generation, null);
+            generation.complete(index);
+        } catch (Exception e) {
+            log.error("Recommendation index rebuild failed. Keeping previous index.", e);
+            inFlightRebuild.compareAndSet(generation, null);
+            generation.completeExceptionally(e);
         }
-        
-        return allFrequentItemsets;
-    }
-
-    private Set<Set<Long>> generateCandidates(Set<Set<Long>> Lk_1, int k) {
-        Set<Set<Long>> candidates = new HashSet<>();
-        List<Set<Long>> listLk_1 = new ArrayList<>(Lk_1);
-        for (int i = 0; i < listLk_1.size(); i++) {
-            for (int j = i + 1; j < listLk_1.size(); j++) {
-                Set<Long> union = new HashSet<>(listLk_1.get(i));
-                union.addAll(listLk_1.get(j));
-                if (union.size() == k) {
-                    candidates.add(union);
-                }
-            }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        indexBuilder.shutdownNow();
+        refreshExecutor.shutdownNow();
+        if (miningPool != null) {
+            miningPool.shutdownNow();
+        }
+    }
+
+    // Solo desde el thread del indice
+    private FrequentItemsetMiner ensureMinerBuilt() {
+        FrequentItemsetMiner current = miner.get();
+        if (current != null && minerBuilt) {
+            applyRecordedOrders(current, Collections.emptySet());
+            return current;
         }
-        return candidates;
-    }
-
-    private List<AssociationRule> generateAssociationRules(Map<Set<Long>, Double> frequentItemsets, int numTransactions, double minConfidence) {
-        List<AssociationRule> rules = new ArrayList<>();
-        for (Map.Entry<Set<Long>, Double> entry : frequentItemsets.entrySet()) {
-            Set<Long> itemset = entry.getKey();
-            if (itemset.size() > 1) {
-                for (Set<Long> subset : getSubsets(itemset)) {
-                    if (subset.isEmpty() || subset.equals(itemset)) continue;
-                    
-                    Set<Long> antecedent = subset;
-                    Set<Long> consequent = new HashSet<>(itemset);
-                    consequent.removeAll(antecedent);
-                    
-                    Double itemsetSupportValue = entry.getValue();
-                    Double antecedentSupportValue = frequentItemsets.get(antecedent);
-                    if (itemsetSupportValue != null && antecedentSupportValue != null && antecedentSupportValue > 0) {
-                        double confidence = itemsetSupportValue / antecedentSupportValue;
-                        if (confidence >= minConfidence) {
-                            rules.add(new AssociationRule(antecedent, consequent, confidence));
+        // Antes de leer la base: un cambio de catalogo durante el build lo vuelve a invalidar
+        minerBuilt = true;
+        try {
+            return rebuildMiner();
+        } catch (RuntimeException e) {
+            minerBuilt = false;
+            throw e;
+        }
+    }
+
+    private FrequentItemsetMiner rebuildMiner() {
+        long start = System.currentTimeMillis();
+
+        // 1. Combos visibles para el cliente
+        Set<Long> compositeIds = productRepository.findVisibleCompositeIds();
+
+        // 2. Hijos directos de cada combo visible, para las ordenes viejas que no registran el combo de origen
+        Map<Long, Set<Long>> childrenByComposite = legacyCompositeChildren(compositeIds);
+
+        // 3. Una sola lectura en stream de las lineas de combo, agrupadas por orden
+        List<Set<Long>> transactions = new ArrayList<>();
+        Set<Long> minedOrderIds = new HashSet<>();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<OrderLineView> lines = orderItemRepository.streamCompositeLines()) {
+                Long currentOrderId = null;
+                Set<Long> compositesInThisOrder = new HashSet<>();
+                Set<Long> legacyProductIds = new HashSet<>();
+                for (Iterator<OrderLineView> it = lines.iterator(); it.hasNext(); ) {
+                    OrderLineView line = it.next();
+                    if (!line.getOrderId().equals(currentOrderId)) {
+                        collectTransaction(transactions, minedOrderIds, currentOrderId, compositesInThisOrder,
+                                legacyProductIds, childrenByComposite);
+                        compositesInThisOrder = new HashSet<>();
+                        legacyProductIds = new HashSet<>();
+                        currentOrderId = line.getOrderId();
+                    }
+                    if (line.getCompositeId() != null) {
+                        if (compositeIds.contains(line.getCompositeId())) {
+                            compositesInThisOrder.add(line.getCompositeId());
                         }
+                    } else if (line.getProductId() != null) {
+                        legacyProductIds.add(line.getProductId());
                     }
                 }
+                collectTransaction(transactions, minedOrderIds, currentOrderId, compositesInThisOrder,
+                        legacyProductIds, childrenByComposite);
             }
+        });
+
+        // 4. El miner nuevo se arma aparte: el anterior sigue disponible hasta publicarlo
+        FrequentItemsetMiner built = minerFactory.get();
+        built.build(transactions);
+        popularCombos.reset(transactions);
+        // Las ordenes confirmadas durante la lectura se reaplican, salvo las que el stream ya incluyo
+        applyRecordedOrders(built, minedOrderIds);
+        miner.set(built);
+        log.info("Recommendation miner built with {} transactions in {} ms",
+                built.getTransactionCount(), System.currentTimeMillis() - start);
+        return built;
+    }
+
+    private void applyRecordedOrders(FrequentItemsetMiner target, Set<Long> alreadyMined) {
+        for (RecordedOrder recorded = recordedOrders.poll(); recorded != null; recorded = recordedOrders.poll()) {
+            if (alreadyMined.contains(recorded.orderId())) continue;
+            target.addTransaction(recorded.transaction());
+            popularCombos.record(recorded.transaction());
         }
-        return rules;
     }
 
-    private Set<Set<Long>> getSubsets(Set<Long> set) {
-        Set<Set<Long>> subsets = new HashSet<>();
-        List<Long> elements = new ArrayList<>(set);
-        int n = elements.size();
-        for (int i = 0; i < (1 << n); i++) {
-            Set<Long> subset = new HashSet<>();
-            for (int j = 0; j < n; j++) {
-                if ((i & (1 << j)) > 0) {
-                    subset.add(elements.get(j));
+    // Agrega la transaccion de una orden (y su id, para no reaplicarla si tambien quedo en recordedOrders). Los items sin linea registrada (ordenes viejas) se agrupan como antes:
+    // cuenta un combo si la orden tiene todos sus hijos.
+    private static void collectTransaction(List<Set<Long>> transactions, Set<Long> minedOrderIds, Long orderId,
+                                           Set<Long> compositesInThisOrder, Set<Long> legacyProductIds,
+                                           Map<Long, Set<Long>> childrenByComposite) {
+        if (!legacyProductIds.isEmpty()) {
+            childrenByComposite.forEach((compositeId, childIds) -> {
+                if (legacyProductIds.containsAll(childIds)) {
+                    compositesInThisOrder.add(compositeId);
                 }
+            });
+        }
+        if (!compositesInThisOrder.isEmpty()) {
+            transactions.add(compositesInThisOrder);
+            minedOrderIds.add(orderId);
+        }
+    }
+
+    private Map<Long, Set<Long>> legacyCompositeChildren(Set<Long> compositeIds) {
+        Map<Long, Set<Long>> childrenByComposite = new HashMap<>();
+        for (ProductComponent product : catalogSnapshot.getAll()) {
+            if (product instanceof CompositeProduct composite && compositeIds.contains(composite.getId())
+                    && !composite.getChildren().isEmpty()) {
+                Set<Long> childIds = new HashSet<>();
+                composite.getChildren().forEach(child -> childIds.add(child.getId()));
+                childrenByComposite.put(composite.getId(), childIds);
             }
-            subsets.add(subset);
         }
-        return subsets;
+        return childrenByComposite;
+    }
+
+    private record RecordedOrder(Long orderId, Set<Long> transaction) {
     }
-    
-    private static class AssociationRule {
-        final Set<Long> antecedent;
-        final Set<Long> consequent;
-        final double confidence;
 
-        AssociationRule(Set<Long> antecedent, Set<Long> consequent, double confidence) {
-            this.antecedent = antecedent;
-            this.consequent = consequent;
-            this.confidence = confidence;
+    // Los combos ya vienen registrados en cada OrderItem: no hace falta inferirlos.
+    // La visibilidad sale del CatalogSnapshot, asi no depende de que el miner ya este construido.
+    private Set<Long> toTransaction(Order order) {
+        Set<Long> compositesInThisOrder = new HashSet<>();
+        for (OrderItem item : order.getItems()) {
+            Long compositeId = item.getSourceCompositeId();
+            if (compositeId != null && !compositesInThisOrder.contains(compositeId)
+                    && catalogSnapshot.get(compositeId) instanceof CompositeProduct composite
+                    && composite.isVisibleToClient()) {
+                compositesInThisOrder.add(compositeId);
+            }
         }
+        return compositesInThisOrder;
     }
-}
\ No newline at end of file
+}
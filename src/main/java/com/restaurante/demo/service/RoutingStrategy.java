@@ -1,12 +1,10 @@
 package com.restaurante.demo.service;
 
-import com.restaurante.demo.model.Order;
+import com.restaurante.demo.model.Chef;
 import com.restaurante.demo.model.OrderItem;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
-
-import java.util.concurrent.ConcurrentHashMap;
 
 public interface RoutingStrategy {
-    // Now accepts the messaging template to trigger real-time updates upon routing
-    void route(Order order, OrderItem item, ConcurrentHashMap<Long, ChefWorkQueue> chefQueues, SimpMessagingTemplate messagingTemplate);
-}
\ No newline at end of file
+    // El contexto trae la orden, su schedule CPM (calculado una sola vez), el roster y las colas.
+    // Devuelve el chef asignado (o null); las notificaciones a cocina las manda el dispatcher, una por orden.
+    Chef route(DispatchContext context, OrderItem item);
+}
@@ -0,0 +1,156 @@
+package com.restaurante.demo.service;
+
+import com.restaurante.demo.model.Chef;
+import com.restaurante.demo.model.ChefStation;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Indice por estacion de chefs ordenados por carga efectiva (minutos en cola * eficiencia).
+ * Cada estacion es un arbol ordenado con un mapa chefId -> entrada: actualizar la carga de un chef es O(log n)
+ * y el menos cargado es el primero del arbol. Empates por chefId para que la eleccion sea determinista.
+ * Las colas avisan cada cambio de carga (encolar, completar, cancelar) y el indice relee la carga con el lock tomado,
+ * asi la ultima actualizacion siempre deja el valor vigente.
+ * El lock de cada estacion es tambien el de {@link #reserve}: elegir al chef y encolarle el item es atomico
+ * por estacion, asi dos ordenes concurrentes no eligen al mismo chef con la misma lectura de carga.
+ */
+public class StationLoadIndex {
+
+    /**
+     * Foto de un chef dentro del indice.
+     */
+    public record ChefLoad(Chef chef, double effectiveLoad) {
+    }
+
+    private static final Comparator<ChefLoad> BY_LOAD = Comparator.comparingDouble(ChefLoad::effectiveLoad)
+            .thenComparing(load -> load.chef().getUserId());
+
+    private final Map<ChefStation, StationHeap> stations;
+    private final ConcurrentHashMap<Long, ChefStation> stationByChef = new ConcurrentHashMap<>();
+
+    public StationLoadIndex() {
+        Map<ChefStation, StationHeap> heaps = new EnumMap<>(ChefStation.class);
+        for (ChefStation station : ChefStation.values()) {
+            heaps.put(station, new StationHeap());
+        }
+        this.stations = Collections.unmodifiableMap(heaps);
+    }
+
+    /**
+     * Inserta o reubica al chef con la carga actual de su cola (si cambio de estacion, sale de la anterior).
+     * @param chef Chef (version del roster: estacion y eficiencia vigentes).
+     * @param loadMinutes Lectura de la carga en minutos; se evalua con el lock de la estacion tomado.
+     */
+    public void update(Chef chef, DoubleSupplier loadMinutes) {
+        Long chefId = chef.getUserId();
+        ChefStation station = chef.getStation();
+        ChefStation previous = station == null ? stationByChef.remove(chefId) : stationByChef.put(chefId, station);
+        if (previous != null && previous != station) {
+            stations.get(previous).remove(chefId);
+        }
+        if (station != null) {
+            stations.get(station).update(chef, loadMinutes);
+        }
+    }
+
+    public void remove(Long chefId) {
+        ChefStation station = stationByChef.remove(chefId);
+        if (station != null) {
+            stations.get(station).remove(chefId);
+        }
+    }
+
+    /**
+     * @return El chef con menor carga efectiva de la estacion, o null si la estacion no tiene chefs.
+     */
+    public Chef leastLoaded(ChefStation station) {
+        ChefLoad first = stations.get(station).first();
+        return first == null ? null : first.chef();
+    }
+
+    /**
+     * Elige un chef de la estacion y le asigna el item con el lock de la estacion tomado.
+     * El callback de asignacion tiene que encolar el item (la cola avisa el cambio de carga y el indice se
+     * actualiza dentro del mismo lock), de modo que la siguiente reserva ya ve la carga nueva.
+     * El chef sugerido (p.ej. por el plan de cocina, calculado sobre una foto que puede estar vieja) solo se respeta
+     * si con la carga vigente termina el item no despues que el menos cargado; si no, gana el menos cargado.
+     * @param station Estacion del item.
+     * @param preferred Chef sugerido, o null para tomar el menos cargado.
+     * @param itemMinutes Minutos del item (preparationTime * quantity), para comparar el fin en cada chef.
+     * @param assign Encola el item en la cola del chef elegido.
+     * @return El chef asignado, o null si la estacion no tiene chefs.
+     */
+    public Chef reserve(ChefStation station, Chef preferred, double itemMinutes, Consumer<Chef> assign) {
+        StationHeap heap = stations.get(station);
+        synchronized (heap) {
+            ChefLoad first = heap.first();
+            if (first == null) {
+                return null;
+            }
+            Chef chef = first.chef();
+            if (preferred != null && !preferred.getUserId().equals(chef.getUserId())) {
+                ChefLoad planned = heap.get(preferred.getUserId());
+                if (planned != null && planned.effectiveLoad() + itemMinutes * preferred.getEfficiency()
+                        <= first.effectiveLoad() + itemMinutes * chef.getEfficiency()) {
+                    chef = preferred;
+                }
+            }
+            assign.accept(chef);
+            return chef;
+        }
+    }
+
+    /**
+     * Corre la accion con el lock de la estacion tomado (el mismo de {@link #reserve}),
+     * p.ej. para mover items entre colas sin competir con el ruteo.
+     */
+    public void withStationLock(ChefStation station, Runnable action) {
+        synchronized (stations.get(station)) {
+            action.run();
+        }
+    }
+
+    /**
+     * @return Los chefs de la estacion de menor a mayor carga efectiva.
+     */
+    public List<ChefLoad> getLoads(ChefStation station) {
+        return stations.get(station).ordered();
+    }
+
+    private static final class StationHeap {
+        private final TreeSet<ChefLoad> ordered = new TreeSet<>(BY_LOAD);
+        private final Map<Long, ChefLoad> byChef = new HashMap<>();
+
+        synchronized void update(Chef chef, DoubleSupplier loadMinutes) {
+            ChefLoad previous = byChef.remove(chef.getUserId());
+            if (previous != null) {
+                ordered.remove(previous);
+            }
+            ChefLoad current = new ChefLoad(chef, loadMinutes.getAsDouble() * chef.getEfficiency());
+            ordered.add(current);
+            byChef.put(chef.getUserId(), current);
+        }
+
+        synchronized void remove(Long chefId) {
+            ChefLoad previous = byChef.remove(chefId);
+            if (previous != null) {
+                ordered.remove(previous);
+            }
+        }
+
+        synchronized ChefLoad get(Long chefId) {
+            return byChef.get(chefId);
+        }
+
+        synchronized ChefLoad first() {
+            return ordered.isEmpty() ? null : ordered.first();
+        }
+
+        synchronized List<ChefLoad> ordered() {
+            return List.copyOf(ordered);
+        }
+    }
+}
@@ -5,126 +5,114 @@ import com.restaurante.demo.model.OrderItem;
 import com.restaurante.demo.model.Product;
 import com.restaurante.demo.model.ProductComponent;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.*;
+import java.util.List;
 
 @Service
 @Slf4j // Report Section 6.3
 public class TimeEstimationService {
 
+    // Un motor por thread: los buffers se reutilizan entre ordenes
+    private final ThreadLocal<CpmEngine> engines = ThreadLocal.withInitial(CpmEngine::new);
+    private final CatalogDependencyGraph dependencyGraph;
+
+    @Autowired
+    public TimeEstimationService(CatalogDependencyGraph dependencyGraph) {
+        this.dependencyGraph = dependencyGraph;
+    }
+
     /**
      * Calcula el tiempo estimado de completado de una orden a traves de un algoritmo de grafo de dependencias.
      * @param order The order to analyze.
      * @return The total estimated time in minutes.
      */
     public double calculateEstimatedCompletionTime(Order order) {
-        if (order.getItems() == null || order.getItems().isEmpty()) {
-            return 0.0;
-        }
+        return computeSchedule(order).getTotalTime();
+    }
 
-        List<OrderItem> items = order.getItems(); 
-        Map<Long, OrderItem> itemMap = new HashMap<>(); 
-        for (OrderItem item : items) {
-            if (item.getProduct() != null && item.getProduct().getId() != null) {
-                itemMap.put(item.getProduct().getId(), item); 
-            }
+    /**
+     * Corre el CPM completo de la orden una sola vez y devuelve el schedule (ES/EF/LS/LF/slack por item).
+     * @param order The order to analyze.
+     * @return The order schedule.
+     */
+    public OrderSchedule computeSchedule(Order order) {
+        if (order.getItems() == null || order.getItems().isEmpty()) {
+            return OrderSchedule.empty();
         }
 
-        // 1. Construir el grafo de dependencias
-        Map<OrderItem, List<OrderItem>> successors = new HashMap<>();
-        Map<OrderItem, Integer> predecessorCount = new HashMap<>();
-        for (OrderItem item : items) {
-            successors.put(item, new ArrayList<>());
-            predecessorCount.put(item, 0);
-        }
+        List<OrderItem> items = order.getItems();
+        CpmEngine engine = engines.get();
+        engine.reset(items.size());
+        CatalogDependencyGraph.Compiled graph = dependencyGraph.current();
 
+        // 1. Cargar items y prerequisitos en el motor (indice = posicion en la orden)
         for (OrderItem item : items) {
             ProductComponent component = item.getProduct();
+            Long productId = component != null ? component.getId() : null;
+            double duration = item.getPreparationTime() * item.getQuantity();
+            int node = graph.indexOf(productId);
+            if (node >= 0) {
+                // Producto del grafo compilado: rank y prerequisitos ya resueltos, solo se escala por cantidad
+                engine.addItem(productId, duration, graph.getRank(node));
+                for (int p = graph.getPrerequisiteStart(node); p < graph.getPrerequisiteEnd(node); p++) {
+                    engine.addPrerequisite(graph.getPrerequisiteId(p));
+                }
+                continue;
+            }
+            // Producto que todavia no esta en el grafo (o no es simple): prerequisitos desde la entidad
+            engine.addItem(productId, duration);
             if (component instanceof Product) {
                 Product product = (Product) component;
-                if (product.getPrerequisiteProductId() != null) {
-                    OrderItem prerequisiteItem = itemMap.get(product.getPrerequisiteProductId());
-                    if (prerequisiteItem != null) {
-                        successors.get(prerequisiteItem).add(item);
-                        predecessorCount.put(item, predecessorCount.get(item) + 1);
-                    }
+                Long legacy = product.getPrerequisiteProductId();
+                if (legacy != null) {
+                    engine.addPrerequisite(legacy);
                 }
-            }
-        }
-
-        // 2. Sorting topologico 
-        Queue<OrderItem> queue = new LinkedList<>();
-        for (OrderItem item : items) {
-            if (predecessorCount.get(item) == 0) {
-                queue.add(item);
-            }
-        }
-
-        List<OrderItem> topologicalOrder = new ArrayList<>();
-        while (!queue.isEmpty()) {
-            OrderItem current = queue.poll();
-            topologicalOrder.add(current);
-            for (OrderItem successor : successors.get(current)) {
-                predecessorCount.put(successor, predecessorCount.get(successor) - 1);
-                if (predecessorCount.get(successor) == 0) {
-                    queue.add(successor);
+                if (product.getPrerequisiteProductIds() != null) {
+                    for (Long prerequisiteId : product.getPrerequisiteProductIds()) {
+                        if (!prerequisiteId.equals(legacy)) {
+                            engine.addPrerequisite(prerequisiteId);
+                        }
+                    }
                 }
             }
         }
 
-        if (topologicalOrder.size() != items.size()) {
+        // 2-4. Sorting topologico + Forward/Backward pass
+        if (!engine.solve()) {
             log.error("Ciclo detectado o dependencias faltantes en CPM. Usando estimacion simple (SUM).");
-            return items.stream().mapToDouble(i -> i.getPreparationTime() * i.getQuantity()).sum();
+            return OrderSchedule.fromItems(items, engine.getTotalTime());
         }
-
-        // 3. Forward Pass
-        double totalTime = 0;
-        for (OrderItem item : topologicalOrder) {
-            double maxPredFinishTime = 0;
-            ProductComponent component = item.getProduct();
-            if (component instanceof Product) {
-                Product product = (Product) component;
-                if (product.getPrerequisiteProductId() != null) {
-                    OrderItem prerequisiteItem = itemMap.get(product.getPrerequisiteProductId());
-                    if (prerequisiteItem != null) {
-                        maxPredFinishTime = prerequisiteItem.getEarlyFinish();
-                    }
-                }
-            }
-            item.setEarlyStart(maxPredFinishTime);
-            double totalItemTime = item.getPreparationTime() * item.getQuantity();
-            item.setEarlyFinish(item.getEarlyStart() + totalItemTime);
-            totalTime = Math.max(totalTime, item.getEarlyFinish());
+        double totalTime = engine.getTotalTime();
+        for (int i = 0; i < items.size(); i++) {
+            OrderItem item = items.get(i);
+            item.setEarlyStart(engine.getEarlyStart(i));
+            item.setEarlyFinish(engine.getEarlyFinish(i));
+            item.setLateStart(engine.getLateStart(i));
+            item.setLateFinish(engine.getLateFinish(i));
+            item.setSlack(engine.getSlack(i));
         }
 
-        // 4. Backward Pass
-        for (int i = topologicalOrder.size() - 1; i >= 0; i--) {
-            OrderItem item = topologicalOrder.get(i);
-            double minSuccStartTime = totalTime;
-            if (!successors.get(item).isEmpty()) {
-                minSuccStartTime = successors.get(item).stream()
-                                                    .mapToDouble(OrderItem::getLateStart)
-                                                    .min().orElse(totalTime);
-            }
-            item.setLateFinish(minSuccStartTime);
-            double totalItemTime = item.getPreparationTime() * item.getQuantity();
-            item.setLateStart(item.getLateFinish() - totalItemTime);
+        // 5. Logging Analysis (una vez por orden; el detalle por item queda en DEBUG).
+        // Las cotizaciones (orden sin id) se calculan en cada cambio del carrito: solo en DEBUG.
+        if (order.getOrderId() != null) {
+            log.info("CPM Critical Path Analysis (Order {}): {} items, total estimated time {} minutes.",
+                    order.getOrderId(), items.size(), totalTime);
+        } else {
+            log.debug("CPM Critical Path Analysis (quote): {} items, total estimated time {} minutes.", items.size(), totalTime);
         }
-
-        // 5. Logging Analysis (Replaced System.out)
-        log.info("--- CPM Critical Path Analysis (Order {}) ---", order.getOrderId());
-        log.info("Total Estimated Time: {} minutes.", totalTime);
-        for (OrderItem item : topologicalOrder) {
-            item.setSlack(item.getLateStart() - item.getEarlyStart());
-            log.debug("Item: {} | Dur: {} | Slack: {} {}", 
-                item.getProduct().getName(), 
-                (item.getPreparationTime() * item.getQuantity()), 
-                item.getSlack(), 
-                (item.getSlack() < 0.001) ? "<- CRITICAL" : ""
-            );
+        if (log.isDebugEnabled()) {
+            for (OrderItem item : items) {
+                log.debug("Item: {} | Dur: {} | Slack: {} {}", 
+                    item.getProduct().getName(), 
+                    (item.getPreparationTime() * item.getQuantity()), 
+                    item.getSlack(), 
+                    (item.getSlack() < 0.001) ? "<- CRITICAL" : ""
+                );
+            }
         }
 
-        return totalTime;
+        return OrderSchedule.fromEngine(items, engine);
     }
 }
\ No newline at end of file
@@ -0,0 +1,125 @@
+package com.restaurante.demo.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Base de transacciones en formato vertical para la mineria de recomendaciones.
+ * Cada product id se mapea a un entero denso y cada item guarda un bitset (long[]) con las transacciones que lo contienen.
+ * El soporte de un itemset es el popcount del AND de sus columnas, sin crear objetos por transaccion.
+ */
+public class TransactionDatabase {
+
+    private static final int INITIAL_ITEMS = 16;
+    private static final int INITIAL_WORDS = 16;
+
+    private final Map<Long, Integer> denseIds = new HashMap<>();
+    private long[] productIds = new long[INITIAL_ITEMS];
+    private long[][] columns = new long[INITIAL_ITEMS][];
+    private int[] itemSupport = new int[INITIAL_ITEMS];
+    private int itemCount = 0;
+    private int transactionCount = 0;
+    private int wordCapacity = INITIAL_WORDS;
+
+    /**
+     * Agrega una transaccion al final de la base.
+     * @param transaction Product ids de la transaccion.
+     */
+    public void add(Set<Long> transaction) {
+        int tid = transactionCount++;
+        int word = tid >>> 6;
+        if (word >= wordCapacity) {
+            growWords(word + 1);
+        }
+        long bit = 1L << tid; // el shift de long usa tid & 63
+        for (Long productId : transaction) {
+            int item = encode(productId);
+            columns[item][word] |= bit;
+            itemSupport[item]++;
+        }
+    }
+
+    public void clear() {
+        denseIds.clear();
+        productIds = new long[INITIAL_ITEMS];
+        columns = new long[INITIAL_ITEMS][];
+        itemSupport = new int[INITIAL_ITEMS];
+        itemCount = 0;
+        transactionCount = 0;
+        wordCapacity = INITIAL_WORDS;
+    }
+
+    /**
+     * Cuenta las transacciones que contienen todos los items (AND de columnas + popcount).
+     * @param itemset Items densos del itemset.
+     * @return The support count.
+     */
+    public int support(int[] itemset) {
+        return support(itemset, 0, getWordCount());
+    }
+
+    /**
+     * Igual que {@link #support(int[])} pero solo sobre las palabras [fromWord, toWord), es decir,
+     * sobre un shard de 64 * (toWord - fromWord) transacciones.
+     */
+    public int support(int[] itemset, int fromWord, int toWord) {
+        long[] first = columns[itemset[0]];
+        int count = 0;
+        for (int w = fromWord; w < toWord; w++) {
+            long acc = first[w];
+            for (int j = 1; j < itemset.length && acc != 0; j++) {
+                acc &= columns[itemset[j]][w];
+            }
+            count += Long.bitCount(acc);
+        }
+        return count;
+    }
+
+    public int getItemSupport(int item) {
+        return itemSupport[item];
+    }
+
+    public long decode(int item) {
+        return productIds[item];
+    }
+
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    public int getTransactionCount() {
+        return transactionCount;
+    }
+
+    public int getWordCount() {
+        return (transactionCount + 63) >>> 6;
+    }
+
+    private int encode(Long productId) {
+        Integer item = denseIds.get(productId);
+        if (item != null) {
+            return item;
+        }
+        if (itemCount == productIds.length) {
+            int capacity = itemCount * 2;
+            productIds = Arrays.copyOf(productIds, capacity);
+            columns = Arrays.copyOf(columns, capacity);
+            itemSupport = Arrays.copyOf(itemSupport, capacity);
+        }
+        int dense = itemCount++;
+        productIds[dense] = productId;
+        columns[dense] = new long[wordCapacity];
+        denseIds.put(productId, dense);
+        return dense;
+    }
+
+    private void growWords(int minWords) {
+        int capacity = Math.max(minWords, wordCapacity * 2);
+        for (int i = 0; i < itemCount; i++) {
+            columns[i] = Arrays.copyOf(columns[i], capacity);
+        }
+        wordCapacity = capacity;
+    }
+}
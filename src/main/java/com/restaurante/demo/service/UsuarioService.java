@@ -12,6 +12,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
 
@@ -23,16 +25,19 @@ public class UsuarioService {
     private final ClienteRepository clienteRepository;
     private final UsuarioRepository usuarioRepository;
     private final PasswordEncoder passwordEncoder;
+    private final ChefRoster chefRoster;
 
     @Autowired
     public UsuarioService(ChefRepository chefRepository, 
                           ClienteRepository clienteRepository,
                           UsuarioRepository usuarioRepository,
-                          PasswordEncoder passwordEncoder) {
+                          PasswordEncoder passwordEncoder,
+                          ChefRoster chefRoster) {
         this.chefRepository = chefRepository;
         this.clienteRepository = clienteRepository;
         this.usuarioRepository = usuarioRepository;
         this.passwordEncoder = passwordEncoder;
+        this.chefRoster = chefRoster;
     }
     
     /**
@@ -65,7 +70,9 @@ public class UsuarioService {
         // Hash password before saving
         chef.setPassword(passwordEncoder.encode(chef.getPassword()));
         log.info("Creating new Chef: {}", chef.getUsername());
-        return chefRepository.save(chef);
+        Chef saved = chefRepository.save(chef);
+        updateRosterAfterCommit(saved);
+        return saved;
     }
 
     public Chef getChefById(Long id) {
@@ -85,7 +92,23 @@ public class UsuarioService {
         existingChef.setStation(chefDetails.getStation());
         existingChef.setEfficiency(chefDetails.getEfficiency());
         // Note: Password updates should be handled via a separate secure endpoint
-        return chefRepository.save(existingChef);
+        Chef saved = chefRepository.save(existingChef);
+        updateRosterAfterCommit(saved);
+        return saved;
+    }
+
+    // El roster de ruteo solo ve cambios confirmados (estacion, eficiencia, chefs nuevos)
+    private void updateRosterAfterCommit(Chef chef) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    chefRoster.upsert(chef);
+                }
+            });
+        } else {
+            chefRoster.upsert(chef);
+        }
     }
 
     // --- Cliente Methods ---
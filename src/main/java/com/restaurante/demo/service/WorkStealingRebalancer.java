@@ -0,0 +1,179 @@
+package com.restaurante.demo.service;
+
+import com.restaurante.demo.dto.ItemStatusUpdateDTO;
+import com.restaurante.demo.model.Chef;
+import com.restaurante.demo.model.ChefStation;
+import com.restaurante.demo.model.OrderItem;
+import com.restaurante.demo.model.OrderStatus;
+import com.restaurante.demo.repository.OrderItemRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rebalanceo periodico dentro de cada estacion: el chef menos cargado le roba items no empezados
+ * (la cola del chef mas cargado, nunca lo que ya empezo) mientras la diferencia de carga efectiva supere el umbral
+ * y el movimiento no lo deje peor que estaba el otro.
+ * El movimiento en memoria se hace con el lock de la estacion (no compite con el ruteo); despues se persiste
+ * el nuevo assignedChef en una sola transaccion y se avisa a la cocina. Si un item ya no esta activo o cambio de chef
+ * en la base, el movimiento se deshace.
+ */
+@Component
+@Slf4j
+public class WorkStealingRebalancer {
+
+    private final OrderDispatcher orderDispatcher;
+    private final ChefRoster chefRoster;
+    private final OrderItemRepository orderItemRepository;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final TransactionTemplate transaction;
+    private final boolean enabled;
+    private final double minGapMinutes;
+    private final int maxMovesPerStation;
+
+    /**
+     * Un item movido de un chef a otro.
+     */
+    record Move(ChefStation station, QueuedItem entry, Chef from, Chef to) {
+    }
+
+    @Autowired
+    public WorkStealingRebalancer(OrderDispatcher orderDispatcher, ChefRoster chefRoster,
+                                  OrderItemRepository orderItemRepository, SimpMessagingTemplate messagingTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${kitchen.rebalance.enabled:true}") boolean enabled,
+                                  @Value("${kitchen.rebalance.min-gap-minutes:10}") double minGapMinutes,
+                                  @Value("${kitchen.rebalance.max-moves-per-station:8}") int maxMovesPerStation) {
+        this.orderDispatcher = orderDispatcher;
+        this.chefRoster = chefRoster;
+        this.orderItemRepository = orderItemRepository;
+        this.messagingTemplate = messagingTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.minGapMinutes = minGapMinutes;
+        this.maxMovesPerStation = maxMovesPerStation;
+    }
+
+    @Scheduled(fixedDelayString = "${kitchen.rebalance.interval-ms:15000}",
+               initialDelayString = "${kitchen.rebalance.interval-ms:15000}")
+    public void scheduledRebalance() {
+        if (enabled) {
+            rebalance();
+        }
+    }
+
+    /**
+     * Una pasada de rebalanceo por todas las estaciones.
+     * @return Cantidad de items reasignados.
+     */
+    public int rebalance() {
+        List<Move> moves = new ArrayList<>();
+        for (ChefStation station : ChefStation.values()) {
+            if (chefRoster.getChefs(station).size() > 1) {
+                moves.addAll(stealWithin(station));
+            }
+        }
+        if (moves.isEmpty()) {
+            return 0;
+        }
+
+        List<Move> applied;
+        try {
+            applied = transaction.execute(status -> persist(moves));
+        } catch (Exception e) {
+            log.error("Work stealing: persisting {} reassignments failed. Reverting.", moves.size(), e);
+            moves.forEach(this::revert);
+            return 0;
+        }
+
+        if (!applied.isEmpty()) {
+            messagingTemplate.convertAndSend("/topic/kitchen/orders",
+                    applied.stream().map(this::toStatusUpdate).toArray(ItemStatusUpdateDTO[]::new));
+        }
+        log.info("Work stealing: {} items reassigned ({} reverted).", applied.size(), moves.size() - applied.size());
+        return applied.size();
+    }
+
+    // Mueve items de la cola del mas cargado a la del menos cargado, con el lock de la estacion
+    private List<Move> stealWithin(ChefStation station) {
+        StationLoadIndex loadIndex = orderDispatcher.getLoadIndex();
+        List<Move> moves = new ArrayList<>();
+        loadIndex.withStationLock(station, () -> {
+            while (moves.size() < maxMovesPerStation) {
+                List<StationLoadIndex.ChefLoad> loads = loadIndex.getLoads(station);
+                if (loads.size() < 2) {
+                    return;
+                }
+                StationLoadIndex.ChefLoad thief = loads.get(0);
+                StationLoadIndex.ChefLoad victim = loads.get(loads.size() - 1);
+                if (victim.effectiveLoad() - thief.effectiveLoad() < minGapMinutes) {
+                    return;
+                }
+                ChefWorkQueue victimQueue = orderDispatcher.getQueueForChef(victim.chef().getUserId());
+                QueuedItem entry = victimQueue.pollLast();
+                if (entry == null) {
+                    return;
+                }
+                // Solo si el ladron termina por debajo de donde estaba la victima; si no, el desbalance no mejora
+                double thiefAfter = thief.effectiveLoad() + entry.getMinutes() * thief.chef().getEfficiency();
+                if (entry.getItemId() == null || thiefAfter >= victim.effectiveLoad()) {
+                    victimQueue.add(entry);
+                    return;
+                }
+                orderDispatcher.getQueueForChef(thief.chef().getUserId()).add(entry);
+                moves.add(new Move(station, entry, victim.chef(), thief.chef()));
+            }
+        });
+        return moves;
+    }
+
+    // Persiste los movimientos validos y deshace en memoria los que ya no aplican
+    private List<Move> persist(List<Move> moves) {
+        List<Move> applied = new ArrayList<>(moves.size());
+        for (Move move : moves) {
+            OrderItem item = orderItemRepository.findById(move.entry().getItemId()).orElse(null);
+            boolean stillQueued = item != null
+                    && (item.getStatus() == OrderStatus.PREPARING || item.getStatus() == OrderStatus.PENDING)
+                    && item.getAssignedChef() != null
+                    && move.from().getUserId().equals(item.getAssignedChef().getUserId());
+            if (!stillQueued) {
+                revert(move);
+                continue;
+            }
+            item.setAssignedChef(move.to());
+            applied.add(move);
+        }
+        return applied;
+    }
+
+    private void revert(Move move) {
+        StationLoadIndex loadIndex = orderDispatcher.getLoadIndex();
+        loadIndex.withStationLock(move.station(), () -> {
+            // Si ya no esta en la cola del ladron, se completo o cancelo mientras tanto
+            if (orderDispatcher.getQueueForChef(move.to().getUserId()).remove(move.entry().getItemId()) != null) {
+                orderDispatcher.getQueueForChef(move.from().getUserId()).add(move.entry());
+            }
+        });
+    }
+
+    private ItemStatusUpdateDTO toStatusUpdate(Move move) {
+        return new ItemStatusUpdateDTO(
+                move.entry().getItemId(),
+                move.entry().getOrderId(),
+                move.to().getUserId(),
+                move.to().getNombre(),
+                move.station(),
+                OrderStatus.PREPARING,
+                move.entry().getProductName(),
+                move.entry().getMinutes()
+        );
+    }
+}
@@ -0,0 +1,168 @@
+package com.restaurante.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cola EDF de un chef: el heap indexado sigue ordenado tras sacar y reprioritizar items por id,
+ * y el item que el chef ya tomo queda al frente, no se cede ni se reordena, aunque llegue otro mas urgente.
+ */
+class ChefWorkQueueTest {
+
+    @Test
+    void startedItemIsNeverStolenEvenWhenNotTheMostUrgent() {
+        ChefWorkQueue queue = new ChefWorkQueue();
+        queue.add(entry(1L, 10, 100));
+        queue.add(entry(2L, 5, 200));
+        assertTrue(queue.start(2L));
+
+        // Llega algo mas urgente que lo que el chef esta cocinando: con EDF queda antes, pero el empezado sigue primero
+        queue.add(entry(3L, 5, 50));
+        assertEquals(2L, queue.peek().getItemId());
+        assertEquals(List.of(2L, 3L, 1L), ids(queue.snapshot()));
+
+        assertEquals(1L, queue.pollLast().getItemId());
+        assertEquals(3L, queue.pollLast().getItemId());
+        assertNull(queue.pollLast());
+        assertEquals(1, queue.size());
+        assertEquals(5.0, queue.getTotalEstimatedTimeInMinutes(), 1e-9);
+    }
+
+    @Test
+    void pollLastCanTakeTheHeadWhenNothingWasStarted() {
+        ChefWorkQueue queue = new ChefWorkQueue();
+        queue.add(entry(1L, 10, 100));
+
+        assertEquals(1L, queue.pollLast().getItemId());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    void startedItemKeepsItsPriority() {
+        ChefWorkQueue queue = new ChefWorkQueue();
+        queue.add(entry(1L, 10, 100));
+        queue.add(entry(2L, 10, 200));
+        queue.start(1L);
+
+        assertFalse(queue.reprioritize(1L, 500));
+        assertEquals(100, queue.peek().getPriority(), 1e-9);
+        assertTrue(queue.reprioritize(2L, 10));
+        assertEquals(List.of(1L, 2L), ids(queue.snapshot()));
+        assertFalse(queue.start(99L));
+    }
+
+    @Test
+    void removingTheStartedItemFreesTheQueue() {
+        ChefWorkQueue queue = new ChefWorkQueue();
+        queue.add(entry(1L, 10, 100));
+        queue.add(entry(2L, 10, 200));
+        queue.start(1L);
+
+        assertNotNull(queue.remove(1L));
+        assertEquals(2L, queue.pollLast().getItemId());
+        assertNull(queue.peek());
+    }
+
+    @Test
+    void heapStaysOrderedUnderRandomRemovesAndReprioritizations() {
+        Random random = new Random(11);
+        ChefWorkQueue queue = new ChefWorkQueue();
+        Map<Long, Double> expected = new HashMap<>();
+        for (long id = 1; id <= 300; id++) {
+            double latestStart = random.nextInt(50);
+            queue.add(entry(id, 1, latestStart));
+            expected.put(id, latestStart);
+        }
+        for (int step = 0; step < 500; step++) {
+            Long id = 1L + random.nextInt(300);
+            if (random.nextBoolean()) {
+                assertEquals(expected.remove(id) != null, queue.remove(id) != null);
+            } else {
+                double latestStart = random.nextInt(50);
+                boolean queued = expected.containsKey(id);
+                assertEquals(queued, queue.reprioritize(id, latestStart));
+                if (queued) expected.put(id, latestStart);
+            }
+        }
+
+        assertEquals(expected.size(), queue.size());
+        assertEquals(expected.size(), queue.getTotalEstimatedTimeInMinutes(), 1e-9);
+        // La cola sale por plazo; con plazos iguales, por orden de llegada (que reprioritize no cambia)
+        double previous = Double.NEGATIVE_INFINITY;
+        for (QueuedItem polled = queue.poll(); polled != null; polled = queue.poll()) {
+            assertEquals(expected.remove(polled.getItemId()), polled.getPriority(), 1e-9);
+            assertTrue(polled.getPriority() >= previous);
+            previous = polled.getPriority();
+        }
+        assertTrue(expected.isEmpty());
+        assertEquals(0, queue.getTotalEstimatedTimeInMinutes(), 1e-9);
+    }
+
+    @Test
+    void pollLastTakesTheLatestDeadlineAndFifoBreaksTies() {
+        ChefWorkQueue queue = new ChefWorkQueue();
+        queue.add(entry(1L, 1, 30));
+        queue.add(entry(2L, 1, 10));
+        queue.add(entry(3L, 1, 30));
+        queue.add(entry(4L, 1, 20));
+        queue.add(entry(5L, 1, 5));
+
+        assertEquals(3L, queue.pollLast().getItemId());
+        assertEquals(1L, queue.pollLast().getItemId());
+        assertTrue(queue.reprioritize(5L, 40));
+        assertEquals(5L, queue.pollLast().getItemId());
+        assertEquals(List.of(2L, 4L), ids(queue.snapshot()));
+    }
+
+    @Test
+    void duplicatesAreRejectedAndItemsWithoutIdStillCount() {
+        ChefWorkQueue queue = new ChefWorkQueue();
+        assertTrue(queue.add(entry(1L, 4, 10)));
+        assertFalse(queue.add(entry(1L, 4, 5)));
+        assertTrue(queue.add(entry(null, 2, 20)));
+
+        assertEquals(2, queue.size());
+        assertEquals(6, queue.getTotalEstimatedTimeInMinutes(), 1e-9);
+        assertNull(queue.remove(null));
+        assertFalse(queue.reprioritize(null, 0));
+        assertEquals(10, queue.peek().getPriority(), 1e-9);
+    }
+
+    @Test
+    void publishedTimelineFollowsEveryChange() {
+        ChefWorkQueue queue = new ChefWorkQueue();
+        assertEquals(0, queue.getTimeline().size());
+        queue.add(entry(1L, 4, 30));
+        queue.add(entry(2L, 6, 10));
+        queue.add(entry(3L, 2, 20));
+        ChefWorkQueue.Timeline before = queue.getTimeline();
+
+        queue.start(3L);
+        queue.remove(2L);
+        ChefWorkQueue.Timeline after = queue.getTimeline();
+
+        // La foto anterior no cambia: quien la estaba leyendo sigue viendo un estado consistente
+        assertEquals(3, before.size());
+        assertEquals(10, before.getLatestStart(0), 1e-9);
+        assertEquals(12, before.getTotalMinutes(), 1e-9);
+        assertEquals(2, after.size());
+        assertEquals(Double.NEGATIVE_INFINITY, after.getLatestStart(0));
+        assertEquals(2, after.getMinutesUpTo(0), 1e-9);
+        assertEquals(30, after.getLatestStart(1), 1e-9);
+        assertEquals(queue.getTotalEstimatedTimeInMinutes(), after.getTotalMinutes(), 1e-9);
+    }
+
+    static QueuedItem entry(Long itemId, double minutes, double latestStart) {
+        return new QueuedItem(itemId, 1L, "Item " + itemId, minutes, latestStart);
+    }
+
+    static List<Long> ids(List<QueuedItem> entries) {
+        return entries.stream().map(QueuedItem::getItemId).toList();
+    }
+}
@@ -0,0 +1,116 @@
+package com.restaurante.demo.service;
+
+import com.restaurante.demo.model.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Muchas ordenes ruteadas en paralelo contra la misma estacion: con la reserva atomica por estacion
+ * el reparto queda como el de un greedy secuencial (la diferencia entre el chef mas y el menos cargado
+ * no supera el item mas largo), tambien cuando cada orden trae un plan de cocina armado sobre una foto vieja.
+ */
+class ConcurrentRoutingStressTest {
+
+    private static final int CHEFS = 4;
+    private static final int THREADS = 16;
+    private static final int ORDERS_PER_THREAD = 200;
+    private static final double MAX_PREP_TIME = 5.0;
+
+    @Test
+    void parallelDispatchKeepsStationBalanced() throws Exception {
+        routeConcurrently(false);
+    }
+
+    @Test
+    void parallelDispatchWithStalePlanKeepsStationBalanced() throws Exception {
+        // Todas las ordenes planifican contra la misma foto (colas vacias): el plan sugiere siempre al mismo chef
+        routeConcurrently(true);
+    }
+
+    private void routeConcurrently(boolean withPlan) throws Exception {
+        List<Chef> chefs = new ArrayList<>();
+        for (long id = 1; id <= CHEFS; id++) {
+            Chef chef = new Chef();
+            chef.setUserId(id);
+            chef.setNombre("Chef " + id);
+            chef.setStation(ChefStation.GRILL_STATION);
+            chefs.add(chef);
+        }
+        ChefRoster roster = new ChefRoster(chefs);
+        StationLoadIndex loadIndex = new StationLoadIndex();
+        ConcurrentHashMap<Long, ChefWorkQueue> queues = new ConcurrentHashMap<>();
+        for (Chef chef : chefs) {
+            ChefWorkQueue queue = new ChefWorkQueue(q -> loadIndex.update(chef, q::getTotalEstimatedTimeInMinutes));
+            queues.put(chef.getUserId(), queue);
+            loadIndex.update(chef, queue::getTotalEstimatedTimeInMinutes);
+        }
+        LeastLoadedChefStrategy strategy = new LeastLoadedChefStrategy();
+        KitchenScheduler scheduler = new KitchenScheduler();
+        Map<ChefStation, List<KitchenScheduler.ChefCapacity>> staleCapacities = KitchenScheduler.capacities(chefs, queues);
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<Double>> submitted = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int seed = t;
+            submitted.add(executor.submit(() -> {
+                start.await();
+                double routed = 0;
+                for (int o = 0; o < ORDERS_PER_THREAD; o++) {
+                    Order order = new Order();
+                    OrderItem item = grillItem(order, 1 + (seed + o) % (int) MAX_PREP_TIME);
+                    OrderSchedule schedule = OrderSchedule.fromItems(order.getItems(), item.getPreparationTime());
+                    KitchenPlan plan = withPlan ? scheduler.plan(schedule, staleCapacities) : KitchenPlan.empty();
+                    DispatchContext context = new DispatchContext(order, schedule, plan,
+                            roster.getChefsById(), loadIndex, queues::get);
+                    strategy.route(context, item);
+                    routed += item.getPreparationTime();
+                }
+                return routed;
+            }));
+        }
+        start.countDown();
+        double totalRouted = 0;
+        for (Future<Double> future : submitted) {
+            totalRouted += future.get();
+        }
+        executor.shutdown();
+
+        double min = Double.MAX_VALUE, max = 0, total = 0;
+        for (ChefWorkQueue queue : queues.values()) {
+            double load = queue.getTotalEstimatedTimeInMinutes();
+            min = Math.min(min, load);
+            max = Math.max(max, load);
+            total += load;
+        }
+
+        assertEquals(totalRouted, total, 1e-6);
+        assertTrue(max - min <= MAX_PREP_TIME, "Load spread " + (max - min) + " exceeds one item");
+        assertEquals(ChefStation.GRILL_STATION, loadIndex.leastLoaded(ChefStation.GRILL_STATION).getStation());
+    }
+
+    private static OrderItem grillItem(Order order, double prepTime) {
+        Product product = new Product();
+        product.setName("Grill " + prepTime);
+        product.setPreparationTime(prepTime);
+        product.setRequiredStation(ChefStation.GRILL_STATION);
+        OrderItem item = new OrderItem();
+        item.setOrder(order);
+        item.setProduct(product);
+        item.setQuantity(1);
+        item.setPreparationTime(prepTime);
+        order.getItems().add(item);
+        return item;
+    }
+}
@@ -0,0 +1,123 @@
+package com.restaurante.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CPM sobre arrays: tiempos de un grafo en diamante con y sin ranks del catalogo, prerequisitos ausentes,
+ * productos repetidos, ciclos y reuso de la instancia con ordenes mas grandes que los buffers iniciales.
+ */
+class CpmEngineTest {
+
+    private static final double EPSILON = 1e-9;
+
+    // A(3) -> B(5), A -> C(2), B y C -> D(4): camino critico A-B-D = 12, C tiene 3 de holgura
+    @Test
+    void diamondWithoutRanksUsesTopologicalSort() {
+        CpmEngine engine = new CpmEngine();
+        engine.reset(4);
+        int d = engine.addItem(4L, 4);
+        engine.addPrerequisite(2L);
+        engine.addPrerequisite(3L);
+        int c = engine.addItem(3L, 2);
+        engine.addPrerequisite(1L);
+        int b = engine.addItem(2L, 5);
+        engine.addPrerequisite(1L);
+        int a = engine.addItem(1L, 3);
+
+        assertTrue(engine.solve());
+        assertDiamond(engine, a, b, c, d);
+    }
+
+    @Test
+    void diamondWithCatalogRanksGivesTheSameTimes() {
+        CpmEngine engine = new CpmEngine();
+        engine.reset(4);
+        int d = engine.addItem(4L, 4, 2);
+        engine.addPrerequisite(2L);
+        engine.addPrerequisite(3L);
+        int c = engine.addItem(3L, 2, 1);
+        engine.addPrerequisite(1L);
+        int b = engine.addItem(2L, 5, 1);
+        engine.addPrerequisite(1L);
+        int a = engine.addItem(1L, 3, 0);
+
+        assertTrue(engine.solve());
+        assertDiamond(engine, a, b, c, d);
+    }
+
+    @Test
+    void missingPrerequisiteIsIgnoredAndRepeatedProductsAreAllPredecessors() {
+        CpmEngine engine = new CpmEngine();
+        engine.reset(4);
+        int sauce1 = engine.addItem(1L, 2);
+        int sauce2 = engine.addItem(1L, 6);
+        int dish = engine.addItem(2L, 3);
+        engine.addPrerequisite(1L);
+        engine.addPrerequisite(99L);
+        int noProduct = engine.addItem(null, 1);
+
+        assertTrue(engine.solve());
+        assertEquals(9, engine.getTotalTime(), EPSILON);
+        assertEquals(6, engine.getEarlyStart(dish), EPSILON);
+        assertEquals(4, engine.getSlack(sauce1), EPSILON);
+        assertEquals(0, engine.getSlack(sauce2), EPSILON);
+        assertEquals(8, engine.getSlack(noProduct), EPSILON);
+    }
+
+    @Test
+    void cycleIsReportedAndTotalFallsBackToSumOfDurations() {
+        CpmEngine engine = new CpmEngine();
+        engine.reset(2);
+        engine.addItem(1L, 2);
+        engine.addPrerequisite(2L);
+        engine.addItem(2L, 3);
+        engine.addPrerequisite(1L);
+
+        assertFalse(engine.solve());
+        assertEquals(5, engine.getTotalTime(), EPSILON);
+    }
+
+    @Test
+    void instanceIsReusableAcrossOrdersLargerThanItsBuffers() {
+        CpmEngine engine = new CpmEngine();
+        // Cadena de 40 items de 1 minuto: el total es el largo de la cadena
+        engine.reset(4);
+        for (long id = 1; id <= 40; id++) {
+            engine.addItem(id, 1);
+            if (id > 1) engine.addPrerequisite(id - 1);
+        }
+        assertTrue(engine.solve());
+        assertEquals(40, engine.getTotalTime(), EPSILON);
+        assertEquals(39, engine.getEarlyStart(39), EPSILON);
+
+        engine.reset(2);
+        int first = engine.addItem(1L, 7);
+        int second = engine.addItem(2L, 2);
+        assertTrue(engine.solve());
+        assertEquals(2, engine.getItemCount());
+        assertEquals(7, engine.getTotalTime(), EPSILON);
+        assertEquals(0, engine.getSlack(first), EPSILON);
+        assertEquals(5, engine.getSlack(second), EPSILON);
+        assertEquals(0, engine.getEarlyStart(second), EPSILON);
+    }
+
+    private static void assertDiamond(CpmEngine engine, int a, int b, int c, int d) {
+        assertEquals(12, engine.getTotalTime(), EPSILON);
+        assertEquals(0, engine.getEarlyStart(a), EPSILON);
+        assertEquals(0, engine.getSlack(a), EPSILON);
+        assertEquals(3, engine.getEarlyStart(b), EPSILON);
+        assertEquals(8, engine.getEarlyFinish(b), EPSILON);
+        assertEquals(0, engine.getSlack(b), EPSILON);
+        assertEquals(3, engine.getEarlyStart(c), EPSILON);
+        assertEquals(6, engine.getLateStart(c), EPSILON);
+        assertEquals(8, engine.getLateFinish(c), EPSILON);
+        assertEquals(3, engine.getSlack(c), EPSILON);
+        assertEquals(8, engine.getEarlyStart(d), EPSILON);
+        assertEquals(8, engine.getLateStart(d), EPSILON);
+        assertEquals(0, engine.getSlack(d), EPSILON);
+        // A tiene dos sucesores (B y C)
+        assertEquals(2, engine.getSuccessorEnd(a) - (a == 0 ? 0 : engine.getSuccessorEnd(a - 1)));
+    }
+}
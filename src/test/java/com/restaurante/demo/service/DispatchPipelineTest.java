@@ -0,0 +1,102 @@
+package com.restaurante.demo.service;
+
+import com.restaurante.demo.model.*;
+import com.restaurante.demo.repository.OrderItemRepository;
+import com.restaurante.demo.repository.OrderRepository;
+import com.restaurante.demo.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Una orden que espera en el buffer de dispatch puede tener items cancelados antes de rutearse:
+ * el consumidor rutea solo los que siguen PENDING y el cancelado no vuelve a ninguna cola ni al indice de carga.
+ */
+class DispatchPipelineTest {
+
+    private DispatchPipeline pipeline;
+
+    @AfterEach
+    void tearDown() {
+        if (pipeline != null) {
+            pipeline.stop();
+        }
+    }
+
+    @Test
+    void itemCancelledWhileBufferedIsNotDispatched() throws Exception {
+        Chef first = chef(1L);
+        Chef second = chef(2L);
+        ProductRepository productRepository = mock(ProductRepository.class);
+        when(productRepository.findAll()).thenReturn(List.of());
+        OrderDispatcher orderDispatcher = new OrderDispatcher(new LeastLoadedChefStrategy(),
+                new ChefRoster(List.of(first, second)), mock(SimpMessagingTemplate.class),
+                new TimeEstimationService(new CatalogDependencyGraph(new CatalogSnapshot(productRepository))),
+                new KitchenScheduler(), true, mock(OrderItemRepository.class), mock(PlatformTransactionManager.class));
+        orderDispatcher.initializeQueuesForTesting();
+
+        Order order = new Order();
+        order.setOrderId(7L);
+        OrderItem cancelled = item(order, 11L, "Hamburguesa", 8);
+        OrderItem kept = item(order, 12L, "Pollo grillado", 10);
+
+        OrderRepository orderRepository = mock(OrderRepository.class);
+        when(orderRepository.findIdsByStatus(OrderStatus.PENDING)).thenReturn(List.of());
+        when(orderRepository.findById(7L)).thenReturn(Optional.of(order));
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        pipeline = new DispatchPipeline(orderRepository, orderDispatcher, mock(PlatformTransactionManager.class),
+                true, 4, 1, 4);
+
+        // La orden ya esta en el buffer (PENDING) cuando se cancela uno de sus items
+        pipeline.reserveSlot();
+        cancelled.setStatus(OrderStatus.REVOKED);
+        pipeline.submitAfterCommit(7L);
+        pipeline.start();
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (pipeline.getStats().getDispatched() < 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(1, pipeline.getStats().getDispatched());
+        assertEquals(OrderStatus.REVOKED, cancelled.getStatus());
+        assertNull(cancelled.getAssignedChef());
+        assertEquals(OrderStatus.PREPARING, kept.getStatus());
+        assertTrue(orderDispatcher.getChefQueues().values().stream().noneMatch(queue -> queue.contains(11L)));
+        double load = orderDispatcher.getLoadIndex().getLoads(ChefStation.GRILL_STATION).stream()
+                .mapToDouble(StationLoadIndex.ChefLoad::effectiveLoad).sum();
+        assertEquals(10.0, load, 1e-9);
+    }
+
+    private static Chef chef(Long id) {
+        Chef chef = new Chef();
+        chef.setUserId(id);
+        chef.setNombre("Chef " + id);
+        chef.setStation(ChefStation.GRILL_STATION);
+        return chef;
+    }
+
+    private static OrderItem item(Order order, Long id, String name, double prepTime) {
+        Product product = new Product();
+        product.setId(id * 10);
+        product.setName(name);
+        product.setPreparationTime(prepTime);
+        product.setRequiredStation(ChefStation.GRILL_STATION);
+        OrderItem item = new OrderItem();
+        item.setId(id);
+        item.setOrder(order);
+        item.setProduct(product);
+        item.setQuantity(1);
+        item.setPreparationTime(prepTime);
+        order.getItems().add(item);
+        return item;
+    }
+}
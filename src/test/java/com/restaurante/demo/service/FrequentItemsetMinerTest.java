@@ -0,0 +1,103 @@
+package com.restaurante.demo.service;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * FP-Growth y Apriori tienen que encontrar exactamente los mismos itemsets con el mismo soporte,
+ * se construyan de una vez o transaccion por transaccion, en secuencial o con un ForkJoinPool.
+ */
+class FrequentItemsetMinerTest {
+
+    private static final double MIN_SUPPORT = 0.02;
+
+    private static ForkJoinPool pool;
+    private static List<Set<Long>> history;
+
+    @BeforeAll
+    static void setUp() {
+        pool = new ForkJoinPool(4);
+        // Historial sesgado: los ids bajos aparecen mas, asi hay itemsets frecuentes de varios niveles
+        Random random = new Random(7);
+        history = new ArrayList<>();
+        for (int t = 0; t < 2000; t++) {
+            Set<Long> transaction = new HashSet<>();
+            int size = 1 + random.nextInt(5);
+            while (transaction.size() < size) {
+                transaction.add(1L + (long) (Math.pow(random.nextDouble(), 2) * 20));
+            }
+            history.add(transaction);
+        }
+    }
+
+    @AfterAll
+    static void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void batchAndIncrementalBuildsAgreeAcrossMinersAndPools() {
+        Map<Set<Long>, Double> expected = batch(new AprioriMiner()).findFrequentItemsets(MIN_SUPPORT);
+        assertTrue(expected.keySet().stream().anyMatch(itemset -> itemset.size() >= 3),
+                "The history should produce itemsets beyond pairs");
+
+        assertSameItemsets(expected, batch(new FPGrowthMiner()));
+        assertSameItemsets(expected, batch(new FPGrowthMiner(pool)));
+        assertSameItemsets(expected, batch(new AprioriMiner(pool)));
+        assertSameItemsets(expected, incremental(new FPGrowthMiner()));
+        assertSameItemsets(expected, incremental(new FPGrowthMiner(pool)));
+        assertSameItemsets(expected, incremental(new AprioriMiner()));
+        assertSameItemsets(expected, incremental(new AprioriMiner(pool)));
+    }
+
+    @Test
+    void incrementalUpdatesAfterBuildMatchAFullRebuild() {
+        // Mitad en build y mitad incremental, con items que no estaban en el ranking inicial
+        List<Set<Long>> extended = new ArrayList<>(history);
+        extended.add(Set.of(100L, 101L));
+        extended.add(Set.of(100L, 101L, 1L));
+
+        for (FrequentItemsetMiner miner : List.of(new FPGrowthMiner(), new FPGrowthMiner(pool), new AprioriMiner(pool))) {
+            miner.build(extended.subList(0, extended.size() / 2));
+            extended.subList(extended.size() / 2, extended.size()).forEach(miner::addTransaction);
+            FrequentItemsetMiner rebuilt = new AprioriMiner();
+            rebuilt.build(extended);
+
+            assertEquals(extended.size(), miner.getTransactionCount());
+            assertSameItemsets(rebuilt.findFrequentItemsets(0.0005), miner, 0.0005);
+        }
+    }
+
+    @Test
+    void emptyMinerHasNoItemsets() {
+        assertTrue(new FPGrowthMiner().findFrequentItemsets(MIN_SUPPORT).isEmpty());
+        assertTrue(new AprioriMiner().findFrequentItemsets(MIN_SUPPORT).isEmpty());
+    }
+
+    private static FrequentItemsetMiner batch(FrequentItemsetMiner miner) {
+        miner.build(history);
+        return miner;
+    }
+
+    private static FrequentItemsetMiner incremental(FrequentItemsetMiner miner) {
+        miner.build(List.of());
+        history.forEach(miner::addTransaction);
+        return miner;
+    }
+
+    private static void assertSameItemsets(Map<Set<Long>, Double> expected, FrequentItemsetMiner miner) {
+        assertSameItemsets(expected, miner, MIN_SUPPORT);
+    }
+
+    private static void assertSameItemsets(Map<Set<Long>, Double> expected, FrequentItemsetMiner miner, double minSupport) {
+        Map<Set<Long>, Double> actual = miner.findFrequentItemsets(minSupport);
+        assertEquals(expected.keySet(), actual.keySet(), miner.getClass().getSimpleName());
+        expected.forEach((itemset, support) -> assertEquals(support, actual.get(itemset), 1e-12, itemset.toString()));
+    }
+}
@@ -0,0 +1,97 @@
+package com.restaurante.demo.simulation;
+
+import com.restaurante.demo.model.*;
+import com.restaurante.demo.repository.ProductRepository;
+import com.restaurante.demo.service.*;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Un dia completo de ordenes sinteticas contra la estrategia de produccion y contra un round robin de referencia,
+ * sin Spring ni base de datos. Loguea el reporte de cada corrida.
+ */
+@Slf4j
+class KitchenSimulationTest {
+
+    private static final double PEAK_ORDERS_PER_HOUR = 30;
+    private static final long SEED = 42;
+
+    private List<Product> catalog;
+    private KitchenSimulator simulator;
+
+    @BeforeEach
+    void setUp() {
+        catalog = SyntheticOrderStream.catalog();
+        ProductRepository productRepository = mock(ProductRepository.class);
+        when(productRepository.findAll()).thenReturn(new ArrayList<>(catalog));
+        TimeEstimationService timeEstimationService =
+                new TimeEstimationService(new CatalogDependencyGraph(new CatalogSnapshot(productRepository)));
+        simulator = new KitchenSimulator(SyntheticOrderStream.brigade(), timeEstimationService, new KitchenScheduler());
+    }
+
+    @Test
+    void fullDayRunsInSecondsAndCompletesEveryOrder() {
+        SimulationReport report = assertTimeout(Duration.ofSeconds(30), () -> simulator.run("least-loaded",
+                new LeastLoadedChefStrategy(), SyntheticOrderStream.day(catalog, PEAK_ORDERS_PER_HOUR, SEED)));
+        log.info(report.summary());
+
+        assertTrue(report.orders() > 200, "A full day should have a few hundred orders");
+        assertEquals(0, report.unroutedItems());
+        assertEquals(0, report.unfinishedOrders());
+        assertTrue(report.makespan() >= SyntheticOrderStream.SERVICE_MINUTES * 0.9);
+        assertTrue(report.p50Wait() > 0 && report.p50Wait() <= report.p99Wait());
+        report.stationUtilization().values().forEach(utilization -> assertTrue(utilization > 0 && utilization <= 1.0));
+    }
+
+    @Test
+    void leastLoadedBalancesBetterThanRoundRobin() {
+        SimulationReport leastLoaded = simulator.run("least-loaded", new LeastLoadedChefStrategy(),
+                SyntheticOrderStream.day(catalog, PEAK_ORDERS_PER_HOUR, SEED));
+        SimulationReport roundRobin = simulator.run("round-robin", new RoundRobinStrategy(),
+                SyntheticOrderStream.day(catalog, PEAK_ORDERS_PER_HOUR, SEED));
+        log.info(leastLoaded.summary());
+        log.info(roundRobin.summary());
+
+        assertEquals(roundRobin.items(), leastLoaded.items());
+        assertTrue(leastLoaded.p99Wait() <= roundRobin.p99Wait(),
+                "least-loaded p99 " + leastLoaded.p99Wait() + " vs round-robin " + roundRobin.p99Wait());
+    }
+
+    /**
+     * Referencia sin informacion de carga: reparte los items de cada estacion por turnos.
+     */
+    private static final class RoundRobinStrategy implements RoutingStrategy {
+        private final Map<ChefStation, AtomicInteger> turns = new ConcurrentHashMap<>();
+
+        @Override
+        public Chef route(DispatchContext context, OrderItem item) {
+            if (!(item.getProduct() instanceof Product product)) {
+                return null;
+            }
+            ChefStation station = product.getRequiredStation();
+            List<Chef> chefs = context.getRoster().values().stream()
+                    .filter(chef -> chef.getStation() == station)
+                    .toList();
+            if (chefs.isEmpty()) {
+                return null;
+            }
+            Chef chef = chefs.get(turns.computeIfAbsent(station, k -> new AtomicInteger()).getAndIncrement() % chefs.size());
+            context.queueFor(chef.getUserId()).addItem(item, context.getLatestStart(item));
+            item.setStatus(OrderStatus.PREPARING);
+            item.setAssignedChef(chef);
+            return chef;
+        }
+    }
+}
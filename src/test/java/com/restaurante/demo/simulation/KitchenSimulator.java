@@ -0,0 +1,247 @@
+package com.restaurante.demo.simulation;
+
+import com.restaurante.demo.model.Chef;
+import com.restaurante.demo.model.ChefStation;
+import com.restaurante.demo.model.Order;
+import com.restaurante.demo.model.OrderItem;
+import com.restaurante.demo.service.*;
+
+import java.util.*;
+
+/**
+ * Simulador de eventos discretos de la cocina con reloj virtual (minutos).
+ * Cada orden llega en su minuto, se calcula su CPM (y el plan de cocina, si esta activo) y se rutea con la
+ * {@link RoutingStrategy} a evaluar, usando las mismas colas ({@link ChefWorkQueue}) e indice de carga que produccion.
+ * Cada chef cocina de a un item: toma el primero de su cola (en el orden de la cola) cuyos prerequisitos ya terminaron,
+ * y tarda preparationTime * quantity * efficiency (misma convencion que el ruteo: eficiencia menor = mas rapido).
+ * Al empezarlo lo marca como tomado y al terminar lo saca de la cola, igual que cuando el chef lo empieza y lo completa en la app.
+ * Asigna ids a los items que no tienen (para poder sacarlos de las colas por id).
+ */
+public class KitchenSimulator {
+
+    /**
+     * Una orden del stream a simular (grabado o sintetico) y el minuto en que llega.
+     */
+    public record SimulatedOrder(double arrivalMinute, Order order) {
+    }
+
+    private final List<Chef> chefs;
+    private final TimeEstimationService timeEstimationService;
+    private final KitchenScheduler kitchenScheduler;
+
+    /**
+     * @param kitchenScheduler Planificador de cocina, o null para rutear sin plan (kitchen.scheduler.enabled=false).
+     */
+    public KitchenSimulator(Collection<Chef> chefs, TimeEstimationService timeEstimationService,
+                            KitchenScheduler kitchenScheduler) {
+        this.chefs = List.copyOf(chefs);
+        this.timeEstimationService = timeEstimationService;
+        this.kitchenScheduler = kitchenScheduler;
+    }
+
+    public SimulationReport run(String name, RoutingStrategy strategy, List<SimulatedOrder> orders) {
+        return new Run(strategy, orders).execute(name);
+    }
+
+    private static final int ARRIVAL = 0;
+    private static final int FINISH = 1;
+
+    private record Event(double time, long sequence, int kind, int orderIndex, Long chefId, Long itemId) {
+    }
+
+    private static final class ItemState {
+        final int orderIndex;
+        int pendingPrerequisites;
+        final List<Long> successors = new ArrayList<>(1);
+
+        ItemState(int orderIndex) {
+            this.orderIndex = orderIndex;
+        }
+    }
+
+    private final class Run {
+        private final RoutingStrategy strategy;
+        private final List<SimulatedOrder> orders;
+        private final ChefRoster roster = new ChefRoster(chefs);
+        private final StationLoadIndex loadIndex = new StationLoadIndex();
+        private final Map<Long, ChefWorkQueue> queues = new HashMap<>();
+        private final Map<Long, Chef> chefsById = new LinkedHashMap<>();
+        private final Map<Long, Double> busyMinutes = new HashMap<>();
+        private final Set<Long> busyChefs = new HashSet<>();
+        private final Map<Long, ItemState> items = new HashMap<>();
+        private final PriorityQueue<Event> events = new PriorityQueue<>(
+                Comparator.comparingDouble(Event::time).thenComparingLong(Event::sequence));
+        private final int[] remainingItems;
+        private final double[] completedAt;
+        private long nextSequence = 0;
+        private long nextItemId = 1;
+        private int itemCount = 0;
+        private int unroutedItems = 0;
+        private double now = 0;
+
+        Run(RoutingStrategy strategy, List<SimulatedOrder> orders) {
+            this.strategy = strategy;
+            this.orders = orders;
+            this.remainingItems = new int[orders.size()];
+            this.completedAt = new double[orders.size()];
+            for (Chef chef : chefs) {
+                ChefWorkQueue queue = new ChefWorkQueue(q -> loadIndex.update(chef, q::getTotalEstimatedTimeInMinutes));
+                queues.put(chef.getUserId(), queue);
+                chefsById.put(chef.getUserId(), chef);
+                busyMinutes.put(chef.getUserId(), 0.0);
+                loadIndex.update(chef, queue::getTotalEstimatedTimeInMinutes);
+            }
+            for (OrderItem item : allItems()) {
+                if (item.getId() != null) {
+                    nextItemId = Math.max(nextItemId, item.getId() + 1);
+                }
+            }
+        }
+
+        SimulationReport execute(String name) {
+            for (int i = 0; i < orders.size(); i++) {
+                push(orders.get(i).arrivalMinute(), ARRIVAL, i, null, null);
+            }
+            double firstArrival = orders.isEmpty() ? 0 : events.peek().time();
+            double lastFinish = firstArrival;
+            while (!events.isEmpty()) {
+                Event event = events.poll();
+                now = event.time();
+                if (event.kind() == ARRIVAL) {
+                    arrive(event.orderIndex());
+                } else {
+                    finish(event.chefId(), event.itemId());
+                    lastFinish = now;
+                }
+                startIdleChefs();
+            }
+            return report(name, firstArrival, lastFinish);
+        }
+
+        private void arrive(int orderIndex) {
+            Order order = orders.get(orderIndex).order();
+            List<OrderItem> orderItems = order.getItems();
+            remainingItems[orderIndex] = orderItems.size();
+            itemCount += orderItems.size();
+            for (OrderItem item : orderItems) {
+                if (item.getId() == null) {
+                    item.setId(nextItemId++);
+                }
+                items.put(item.getId(), new ItemState(orderIndex));
+            }
+
+            // Prerequisitos dentro de la orden, desde las aristas del CPM
+            OrderSchedule schedule = timeEstimationService.computeSchedule(order);
+            for (int i = 0; i < schedule.size(); i++) {
+                ItemState state = items.get(schedule.getItem(i).getId());
+                for (int e = schedule.getSuccessorStart(i); e < schedule.getSuccessorEnd(i); e++) {
+                    Long successorId = schedule.getItem(schedule.getSuccessor(e)).getId();
+                    state.successors.add(successorId);
+                    items.get(successorId).pendingPrerequisites++;
+                }
+            }
+
+            KitchenPlan plan = kitchenScheduler == null ? KitchenPlan.empty()
+                    : kitchenScheduler.plan(schedule, KitchenScheduler.capacities(chefs, queues, now));
+            DispatchContext context = new DispatchContext(order, schedule, plan, roster.getChefsById(), loadIndex,
+                    queues::get, now);
+            for (OrderItem item : orderItems) {
+                if (strategy.route(context, item) == null) {
+                    // Sin chef para la estacion: se descarta para no bloquear a sus sucesores
+                    unroutedItems++;
+                    complete(item.getId());
+                }
+            }
+        }
+
+        private void finish(Long chefId, Long itemId) {
+            queues.get(chefId).remove(itemId);
+            busyChefs.remove(chefId);
+            complete(itemId);
+        }
+
+        private void complete(Long itemId) {
+            ItemState state = items.get(itemId);
+            for (Long successorId : state.successors) {
+                items.get(successorId).pendingPrerequisites--;
+            }
+            if (--remainingItems[state.orderIndex] == 0) {
+                completedAt[state.orderIndex] = now;
+            }
+        }
+
+        private void startIdleChefs() {
+            for (Chef chef : chefsById.values()) {
+                Long chefId = chef.getUserId();
+                if (busyChefs.contains(chefId)) {
+                    continue;
+                }
+                for (QueuedItem entry : queues.get(chefId).snapshot()) {
+                    if (items.get(entry.getItemId()).pendingPrerequisites == 0) {
+                        double duration = entry.getMinutes() * chef.getEfficiency();
+                        queues.get(chefId).start(entry.getItemId());
+                        busyChefs.add(chefId);
+                        busyMinutes.merge(chefId, duration, Double::sum);
+                        push(now + duration, FINISH, -1, chefId, entry.getItemId());
+                        break;
+                    }
+                }
+            }
+        }
+
+        private void push(double time, int kind, int orderIndex, Long chefId, Long itemId) {
+            events.add(new Event(time, nextSequence++, kind, orderIndex, chefId, itemId));
+        }
+
+        private List<OrderItem> allItems() {
+            List<OrderItem> all = new ArrayList<>();
+            orders.forEach(order -> all.addAll(order.order().getItems()));
+            return all;
+        }
+
+        private SimulationReport report(String name, double firstArrival, double lastFinish) {
+            double makespan = lastFinish - firstArrival;
+
+            double[] waits = new double[orders.size()];
+            int unfinishedOrders = 0;
+            for (int i = 0; i < orders.size(); i++) {
+                if (remainingItems[i] > 0) {
+                    unfinishedOrders++;
+                }
+                waits[i] = completedAt[i] - orders.get(i).arrivalMinute();
+            }
+            Arrays.sort(waits);
+
+            Map<ChefStation, Double> utilization = new EnumMap<>(ChefStation.class);
+            Map<ChefStation, Double> imbalance = new EnumMap<>(ChefStation.class);
+            for (ChefStation station : ChefStation.values()) {
+                List<Chef> stationChefs = roster.getChefs(station);
+                if (stationChefs.isEmpty()) {
+                    continue;
+                }
+                double total = 0, min = Double.MAX_VALUE, max = 0;
+                for (Chef chef : stationChefs) {
+                    double busy = busyMinutes.get(chef.getUserId());
+                    total += busy;
+                    min = Math.min(min, busy);
+                    max = Math.max(max, busy);
+                }
+                double mean = total / stationChefs.size();
+                utilization.put(station, makespan > 0 ? total / (stationChefs.size() * makespan) : 0.0);
+                imbalance.put(station, mean > 0 ? (max - min) / mean : 0.0);
+            }
+
+            return new SimulationReport(name, orders.size(), itemCount, unroutedItems, unfinishedOrders, makespan,
+                    percentile(waits, 0.50), percentile(waits, 0.99), utilization, imbalance);
+        }
+    }
+
+    // Percentil por rango mas cercano sobre un arreglo ordenado
+    private static double percentile(double[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        int rank = (int) Math.ceil(p * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+}
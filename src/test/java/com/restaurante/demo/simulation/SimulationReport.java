@@ -0,0 +1,31 @@
+package com.restaurante.demo.simulation;
+
+import com.restaurante.demo.model.ChefStation;
+
+import java.util.Map;
+
+/**
+ * Resultado de una corrida del {@link KitchenSimulator}. Tiempos en minutos del reloj virtual.
+ * @param makespan Desde la primera llegada hasta que termina el ultimo item.
+ * @param p50Wait Mediana de llegada -> orden completa.
+ * @param p99Wait Percentil 99 de llegada -> orden completa.
+ * @param stationUtilization Minutos cocinando / (chefs * makespan), por estacion.
+ * @param chefImbalance (mas ocupado - menos ocupado) / promedio de minutos cocinando, por estacion (0 = parejo).
+ */
+public record SimulationReport(String strategy, int orders, int items, int unroutedItems, int unfinishedOrders,
+                               double makespan, double p50Wait, double p99Wait,
+                               Map<ChefStation, Double> stationUtilization, Map<ChefStation, Double> chefImbalance) {
+
+    public double maxChefImbalance() {
+        return chefImbalance.values().stream().mapToDouble(Double::doubleValue).max().orElse(0.0);
+    }
+
+    public String summary() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%s: %d orders / %d items, makespan %.1f min, wait p50 %.1f p99 %.1f min, max imbalance %.2f",
+                strategy, orders, items, makespan, p50Wait, p99Wait, maxChefImbalance()));
+        stationUtilization.forEach((station, utilization) -> sb.append(String.format("%n  %-18s utilization %.2f imbalance %.2f",
+                station, utilization, chefImbalance.get(station))));
+        return sb.toString();
+    }
+}
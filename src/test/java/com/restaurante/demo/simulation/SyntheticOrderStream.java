@@ -0,0 +1,125 @@
+package com.restaurante.demo.simulation;
+
+import com.restaurante.demo.model.*;
+
+import java.util.*;
+
+/**
+ * Stream sintetico de un dia de servicio: un catalogo chico con prerequisitos entre estaciones, una brigada de chefs
+ * con eficiencias distintas y llegadas Poisson con picos de almuerzo y cena.
+ */
+public final class SyntheticOrderStream {
+
+    // Servicio de 11:00 a 23:00, en minutos desde la apertura
+    public static final double SERVICE_MINUTES = 12 * 60;
+
+    private SyntheticOrderStream() {
+    }
+
+    /**
+     * @return Productos simples con ids 1..n (los prerequisitos apuntan a ids del mismo catalogo).
+     */
+    public static List<Product> catalog() {
+        List<Product> products = new ArrayList<>();
+        Product salsa = product(products, "Salsa criolla", 3, ChefStation.SAUCE_STATION);
+        Product chimichurri = product(products, "Chimichurri", 2, ChefStation.SAUCE_STATION);
+        Product papas = product(products, "Papas fritas", 5, ChefStation.SOUS_CHEF_STATION);
+        product(products, "Ensalada", 4, ChefStation.SOUS_CHEF_STATION);
+        product(products, "Hamburguesa", 8, ChefStation.GRILL_STATION);
+        Product bife = product(products, "Bife de chorizo", 12, ChefStation.GRILL_STATION);
+        bife.getPrerequisiteProductIds().add(chimichurri.getId());
+        product(products, "Pollo grillado", 10, ChefStation.GRILL_STATION);
+        Product plato = product(products, "Plato del dia", 14, ChefStation.MAIN_CHEF_STATION);
+        plato.setPrerequisiteProductId(salsa.getId());
+        plato.getPrerequisiteProductIds().add(papas.getId());
+        product(products, "Flan", 4, ChefStation.PASTRY_STATION);
+        product(products, "Tarta de manzana", 6, ChefStation.PASTRY_STATION);
+        return products;
+    }
+
+    /**
+     * @return Brigada de 9 chefs: mas de uno en las estaciones con mas trabajo y eficiencias entre 0.85 y 1.2.
+     */
+    public static List<Chef> brigade() {
+        List<Chef> chefs = new ArrayList<>();
+        chef(chefs, ChefStation.SAUCE_STATION, 1.0);
+        chef(chefs, ChefStation.SOUS_CHEF_STATION, 0.9);
+        chef(chefs, ChefStation.SOUS_CHEF_STATION, 1.2);
+        chef(chefs, ChefStation.GRILL_STATION, 0.85);
+        chef(chefs, ChefStation.GRILL_STATION, 1.0);
+        chef(chefs, ChefStation.GRILL_STATION, 1.15);
+        chef(chefs, ChefStation.MAIN_CHEF_STATION, 0.9);
+        chef(chefs, ChefStation.MAIN_CHEF_STATION, 1.1);
+        chef(chefs, ChefStation.PASTRY_STATION, 1.0);
+        return chefs;
+    }
+
+    /**
+     * Un dia de ordenes (1 a 4 platos, cantidades 1 o 2) con llegadas Poisson de tasa variable por hora.
+     * @param ordersPerHourAtPeak Tasa en el pico de almuerzo/cena; fuera de los picos es una fraccion.
+     * @param seed Semilla para que las corridas sean comparables.
+     */
+    public static List<KitchenSimulator.SimulatedOrder> day(List<Product> catalog, double ordersPerHourAtPeak, long seed) {
+        Random random = new Random(seed);
+        List<KitchenSimulator.SimulatedOrder> orders = new ArrayList<>();
+        double peakPerMinute = ordersPerHourAtPeak / 60.0;
+        double t = 0;
+        while (true) {
+            // Proceso de Poisson no homogeneo por thinning
+            t += -Math.log(1 - random.nextDouble()) / peakPerMinute;
+            if (t >= SERVICE_MINUTES) {
+                break;
+            }
+            if (random.nextDouble() < rateFactor(t)) {
+                orders.add(new KitchenSimulator.SimulatedOrder(t, order(catalog, random)));
+            }
+        }
+        return orders;
+    }
+
+    // Fraccion de la tasa pico segun la hora: almuerzo 12-14, cena 20-22
+    private static double rateFactor(double minute) {
+        double hour = 11 + minute / 60.0;
+        if ((hour >= 12 && hour < 14) || (hour >= 20 && hour < 22)) {
+            return 1.0;
+        }
+        return 0.3;
+    }
+
+    private static Order order(List<Product> catalog, Random random) {
+        Order order = new Order();
+        int dishes = 1 + random.nextInt(4);
+        Set<Product> chosen = new LinkedHashSet<>();
+        while (chosen.size() < dishes) {
+            chosen.add(catalog.get(random.nextInt(catalog.size())));
+        }
+        for (Product product : chosen) {
+            OrderItem item = new OrderItem();
+            item.setOrder(order);
+            item.setProduct(product);
+            item.setQuantity(1 + (random.nextDouble() < 0.25 ? 1 : 0));
+            item.setPreparationTime(product.getPreparationTime());
+            order.getItems().add(item);
+        }
+        return order;
+    }
+
+    private static Product product(List<Product> products, String name, double prepTime, ChefStation station) {
+        Product product = new Product();
+        product.setId((long) products.size() + 1);
+        product.setName(name);
+        product.setPreparationTime(prepTime);
+        product.setRequiredStation(station);
+        products.add(product);
+        return product;
+    }
+
+    private static void chef(List<Chef> chefs, ChefStation station, double efficiency) {
+        Chef chef = new Chef();
+        chef.setUserId((long) chefs.size() + 1);
+        chef.setNombre("Chef " + (chefs.size() + 1));
+        chef.setStation(station);
+        chef.setEfficiency(efficiency);
+        chefs.add(chef);
+    }
+}